@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 repositories {
@@ -19,12 +20,21 @@ application {
 
 tasks.compileJava { options.encoding = "UTF-8" }
 tasks.compileTestJava { options.encoding = "UTF-8" }
+tasks.named<JavaCompile>("compileJmhJava") { options.encoding = "UTF-8" }
 
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
 }
 
+// Microbenchmarks of data-flow solvers and facts, run by ./gradlew jmh.
+// The gc profiler reports allocation rates besides throughput.
+jmh {
+    jmhVersion.set("1.35")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(17))
@@ -0,0 +1,234 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysisDriver;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the data-flow analyses on all methods of a program,
+ * parameterized by the solver. The constant propagation benchmark is
+ * also parameterized by the fact implementation, see {@link CPFactState}.
+ * Run with the gc profiler
+ * (enabled in build.gradle.kts) to also obtain allocation rates.
+ * <p>
+ * The programs are the test cases in {@code src/test/resources/dataflow},
+ * and {@code Synthetic}, which is generated by {@link SyntheticProgram}
+ * and contains very large methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4G"})
+public class DataflowBenchmark {
+
+    private static final String TEST_DIR = "src/test/resources/dataflow/deadcode";
+
+    @Param({"ControlFlowUnreachable", "DeadAssignment", "Loops", "StoreField",
+            "UnreachableIfBranch", "UnreachableSwitchBranch", "Synthetic"})
+    public String program;
+
+    @Param({"worklist", "priority", "wto", "block", "demand"})
+    public String solver;
+
+    /**
+     * Size of the generated methods of {@code Synthetic} program.
+     */
+    @Param("2000")
+    public int syntheticSize;
+
+    private List<IR> irs;
+
+    private LiveVariableAnalysis liveVars;
+
+    private ConstantPropagation constProp;
+
+    private DeadCodeDetection deadCode;
+
+    @Setup
+    public void setUp() throws IOException {
+        String classPath = TEST_DIR;
+        if (program.equals(SyntheticProgram.NAME)) {
+            Path dir = SyntheticProgram.generate(syntheticSize);
+            classPath = dir.toString();
+        }
+        // build the world and the CFGs of all application methods
+        Main.main(new String[]{
+                "-pp", "-cp", classPath, "-m", program, "-a", CFGBuilder.ID});
+        irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .filter(ir -> ir.getKeys().contains(CFGBuilder.ID))
+                .toList();
+        liveVars = new LiveVariableAnalysis(new AnalysisConfig(
+                LiveVariableAnalysis.ID, "solver", solver));
+        constProp = new ConstantPropagation(new AnalysisConfig(
+                ConstantPropagation.ID, "solver", solver));
+        deadCode = new DeadCodeDetection(new AnalysisConfig(
+                DeadCodeDetection.ID));
+    }
+
+    @Benchmark
+    public void liveVariables(Blackhole bh) {
+        for (IR ir : irs) {
+            bh.consume(liveVars.analyze(ir));
+        }
+    }
+
+    @Benchmark
+    public void constantPropagation(CPFactState state, Blackhole bh) {
+        for (IR ir : irs) {
+            bh.consume(state.constProp.analyze(ir));
+        }
+    }
+
+    /**
+     * Runs dead code detection together with the analyses it requires.
+     */
+    @Benchmark
+    public void deadCodeDetection(Blackhole bh) {
+        for (IR ir : irs) {
+            ir.storeResult(ConstantPropagation.ID, constProp.analyze(ir));
+            ir.storeResult(LiveVariableAnalysis.ID, liveVars.analyze(ir));
+            bh.consume(deadCode.analyze(ir));
+        }
+    }
+
+    /**
+     * Runs dead code detection together with the analyses it requires
+     * on all methods in parallel on the common pool.
+     *
+     * @see MethodAnalysisDriver
+     */
+    @Benchmark
+    public void deadCodeDetectionInParallel() {
+        new MethodAnalysisDriver().analyze(irs,
+                List.of(constProp, liveVars, deadCode));
+    }
+
+    /**
+     * Measures the heap retained by the results of live variable analysis
+     * and constant propagation pruned by the live variables, which are
+     * kept alive after solving as the results stored in the IRs are.
+     * The retained heap is reported as the {@code retainedBytes}
+     * secondary result, which shows, e.g., whether the demand-driven
+     * solver releases the data used only for solving.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public List<Object> retainedHeap(HeapState heap) {
+        ConstantPropagation prunedConstProp = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID,
+                        "solver", solver, "prune-dead", true));
+        List<Object> results = new ArrayList<>(irs.size() * 2);
+        long before = HeapState.usedHeap();
+        for (IR ir : irs) {
+            Object liveVarsResult = liveVars.analyze(ir);
+            ir.storeResult(LiveVariableAnalysis.ID, liveVarsResult);
+            results.add(liveVarsResult);
+            results.add(prunedConstProp.analyze(ir));
+        }
+        heap.retainedBytes += HeapState.usedHeap() - before;
+        return results;
+    }
+
+    /**
+     * Parameterizes constant propagation by the fact implementation.
+     * The parameter is kept out of {@link DataflowBenchmark}, as it does
+     * not affect the other benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class CPFactState {
+
+        @Param({"persistent", "array"})
+        public String fact;
+
+        private ConstantPropagation constProp;
+
+        @Setup
+        public void setUp(DataflowBenchmark benchmark) {
+            constProp = new ConstantPropagation(new AnalysisConfig(
+                    ConstantPropagation.ID, "solver", benchmark.solver, "fact", fact));
+        }
+    }
+
+    /**
+     * Accumulates the heap retained by the results of {@link #retainedHeap}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapState {
+
+        public long retainedBytes;
+
+        /**
+         * @return the used heap after collecting the garbage as far as possible.
+         */
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            long used = Long.MAX_VALUE;
+            // repeat until the collection does not free more memory
+            for (int i = 0; i < 5; ++i) {
+                System.gc();
+                long current = runtime.totalMemory() - runtime.freeMemory();
+                if (current >= used) {
+                    break;
+                }
+                used = current;
+            }
+            return used;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generator of a synthetic program with very large methods, which
+ * stresses the data-flow solvers and facts. The generated program
+ * contains a straight-line method, a method with many branches, and
+ * a method with nested loops and switches, all over int variables.
+ */
+final class SyntheticProgram {
+
+    /**
+     * Name of the main class of the generated program.
+     */
+    static final String NAME = "Synthetic";
+
+    private SyntheticProgram() {
+    }
+
+    /**
+     * Generates the source of the program in a new temporary directory.
+     *
+     * @param size number of code fragments in each generated method
+     * @return the directory containing the source
+     */
+    static Path generate(int size) throws IOException {
+        Path dir = Files.createTempDirectory("tai-e-synthetic");
+        Files.writeString(dir.resolve(NAME + ".java"), generateSource(size));
+        return dir;
+    }
+
+    static String generateSource(int size) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("public class ").append(NAME).append(" {\n\n");
+        sb.append("    public static void main(String[] args) {\n")
+                .append("        int n = args.length;\n")
+                .append("        straightLine(n);\n")
+                .append("        branches(n);\n")
+                .append("        loops(n);\n")
+                .append("    }\n\n");
+        // straight-line code, mixing constants (including large ones)
+        // and values depending on the parameter
+        sb.append("    static int straightLine(int p) {\n")
+                .append("        int c0 = 1000;\n")
+                .append("        int x0 = p;\n");
+        for (int i = 1; i <= size; ++i) {
+            sb.append("        int c").append(i).append(" = c").append(i - 1)
+                    .append(" * 3 + ").append(i).append(";\n");
+            sb.append("        int x").append(i).append(" = x").append(i - 1)
+                    .append(" ^ c").append(i).append(";\n");
+        }
+        sb.append("        return x").append(size).append(";\n    }\n\n");
+        // many branches, some of which are unreachable
+        sb.append("    static int branches(int p) {\n")
+                .append("        int a = 0;\n")
+                .append("        int b = 1;\n");
+        for (int i = 0; i < size; ++i) {
+            if (i % 3 == 0) {
+                sb.append("        if (b > 0) {\n")
+                        .append("            a = a + ").append(i).append(";\n")
+                        .append("        } else {\n")
+                        .append("            a = p;\n")
+                        .append("        }\n");
+            } else {
+                sb.append("        if (p > ").append(i).append(") {\n")
+                        .append("            a = a * 2;\n")
+                        .append("        } else {\n")
+                        .append("            b = b + 1;\n")
+                        .append("        }\n");
+            }
+        }
+        sb.append("        return a + b;\n    }\n\n");
+        // nested loops and switches
+        sb.append("    static int loops(int p) {\n")
+                .append("        int s = 0;\n")
+                .append("        int t = 0;\n");
+        for (int i = 0; i < size / 10; ++i) {
+            sb.append("        for (int i").append(i).append(" = 0; i").append(i)
+                    .append(" < p; i").append(i).append("++) {\n")
+                    .append("            int j").append(i).append(" = 0;\n")
+                    .append("            while (j").append(i).append(" < i")
+                    .append(i).append(") {\n")
+                    .append("                switch (j").append(i).append(" % 4) {\n")
+                    .append("                    case 0: s = s + 1; break;\n")
+                    .append("                    case 1: t = s; break;\n")
+                    .append("                    case 2: s = t * 2; break;\n")
+                    .append("                    default: t = 100000;\n")
+                    .append("                }\n")
+                    .append("                j").append(i).append(" = j")
+                    .append(i).append(" + 1;\n")
+                    .append("            }\n")
+                    .append("        }\n");
+        }
+        sb.append("        return s + t;\n    }\n}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.World;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a pipeline of method analyses over many methods in parallel.
+ * <p>
+ * Each method is processed by a single task, which runs all given
+ * analyses on the IR of the method in order, and stores the result of
+ * each analysis in the IR, so that an analysis can consume the results
+ * of the previous ones (e.g., dead code detection consuming the results
+ * of constant propagation and live variable analysis) in the same thread.
+ * Methods are distributed over the workers of a {@link ForkJoinPool}.
+ * <p>
+ * {@link IR} is not thread-safe, which is sound here as every IR is
+ * written only by the task of its method, and {@link #analyze} returns
+ * after joining all tasks, which publishes the stored results to the
+ * calling thread. Thus, the results must be read only after
+ * {@link #analyze} returns, and the IRs must not be accessed by
+ * other threads during the analysis.
+ * <p>
+ * The analyses must not keep per-method state in their fields,
+ * as one analysis instance analyzes many methods concurrently.
+ */
+public class MethodAnalysisDriver implements AutoCloseable {
+
+    /**
+     * Maximum number of methods processed sequentially by one task.
+     */
+    private static final int THRESHOLD = 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Whether {@link #pool} is created by this driver,
+     * and thus shut down by {@link #close()}.
+     */
+    private final boolean ownsPool;
+
+    /**
+     * Creates a driver which runs analyses on the common pool.
+     */
+    public MethodAnalysisDriver() {
+        this(ForkJoinPool.commonPool(), false);
+    }
+
+    /**
+     * Creates a driver which runs analyses on the given pool.
+     * The pool is not shut down by {@link #close()}.
+     */
+    public MethodAnalysisDriver(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    /**
+     * Creates a driver which runs analyses on a new pool with
+     * given parallelism. The pool is shut down by {@link #close()}.
+     */
+    public MethodAnalysisDriver(int parallelism) {
+        this(new ForkJoinPool(parallelism), true);
+    }
+
+    private MethodAnalysisDriver(ForkJoinPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * Runs the analyses on all non-abstract and non-native methods
+     * of the application classes. The IRs of the methods are obtained
+     * in the calling thread before the analyses start, so that lazily
+     * built IRs are not built concurrently.
+     */
+    public void analyzeApplicationMethods(List<? extends MethodAnalysis> analyses) {
+        List<IR> irs = World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        analyze(irs, analyses);
+    }
+
+    /**
+     * Runs the analyses on given IRs, and stores the result of each
+     * analysis in the IR, with the analysis ID as key.
+     * This method returns after all IRs have been analyzed.
+     */
+    public void analyze(List<IR> irs, List<? extends MethodAnalysis> analyses) {
+        pool.invoke(new AnalyzeTask(irs, analyses, 0, irs.size()));
+    }
+
+    /**
+     * Shuts down the pool if it is created by this driver.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    private static class AnalyzeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<IR> irs;
+
+        private final List<? extends MethodAnalysis> analyses;
+
+        private final int from;
+
+        private final int to;
+
+        private AnalyzeTask(List<IR> irs,
+                            List<? extends MethodAnalysis> analyses,
+                            int from, int to) {
+            this.irs = irs;
+            this.analyses = analyses;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; ++i) {
+                    analyze(irs.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AnalyzeTask(irs, analyses, from, mid),
+                        new AnalyzeTask(irs, analyses, mid, to));
+            }
+        }
+
+        private void analyze(IR ir) {
+            for (MethodAnalysis analysis : analyses) {
+                ir.storeResult(analysis.getId(), analysis.analyze(ir));
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRPrinter;
@@ -97,6 +98,10 @@ public class ResultProcessor extends ProgramAnalysis {
                 .collect(Collectors.groupingBy(id -> World.get().getResult(id) != null));
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
+            if (getOptions().get("slowest-methods") != null) {
+                logSlowestMethods(groups.get(false),
+                        getOptions().getInt("slowest-methods"));
+            }
         }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
@@ -164,6 +169,37 @@ public class ResultProcessor extends ProgramAnalysis {
         processResults(methods, analyses, (m, id) -> m.getIR().getResult(id));
     }
 
+    /**
+     * Logs the given number of methods which take the longest time
+     * to solve for each given analysis, according to the
+     * {@link SolverStats} collected by the analyses.
+     */
+    private static void logSlowestMethods(List<String> analyses, int n) {
+        analyses.forEach(id -> {
+            String key = SolverStats.getKey(id);
+            List<SolverStats<?>> slowest = World.get()
+                    .getClassHierarchy()
+                    .applicationClasses()
+                    .map(JClass::getDeclaredMethods)
+                    .flatMap(Collection::stream)
+                    .filter(m -> !m.isAbstract() && !m.isNative())
+                    .<SolverStats<?>>map(m -> m.getIR().getResult(key))
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingLong(
+                            SolverStats<?>::getSolveTime).reversed())
+                    .limit(n)
+                    .toList();
+            if (slowest.isEmpty()) {
+                logger.info("No solver statistics of analysis {}" +
+                        " (set option stats:true to collect them)", id);
+            } else {
+                logger.info("Top {} slowest methods of analysis {}:",
+                        slowest.size(), id);
+                slowest.forEach(stats -> logger.info("  {}", stats));
+            }
+        });
+    }
+
     private void processResults(Stream<JMethod> methods, List<String> analyses,
                                 BiFunction<JMethod, String, ?> resultGetter) {
         methods.forEach(method ->
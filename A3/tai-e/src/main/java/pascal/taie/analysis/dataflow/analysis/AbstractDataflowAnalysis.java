@@ -23,29 +23,72 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 
+import javax.annotation.Nullable;
+
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
+    private final String solverKind;
+
     private final Solver<Node, Fact> solver;
 
+    /**
+     * If true, collects {@link SolverStats} for each method.
+     */
+    private final boolean collectStats;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solverKind = getOptions().getString("solver");
+        solver = Solver.makeSolver(this, solverKind);
+        collectStats = getOptions().getBooleanOrDefault("stats", false);
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
+        return solve(ir, this);
+    }
+
+    /**
+     * @return the result cache configured for this analysis, or null if
+     * caching is disabled. Caching is also disabled if {@link SolverStats}
+     * are collected, as the cached results would skip the solving.
+     */
+    @Nullable
+    protected ResultCache openResultCache() {
+        return collectStats ? null : ResultCache.of(getOptions());
+    }
+
+    /**
+     * Solves the CFG of given IR for given analysis, with the solver kind
+     * configured for this analysis. As an analysis instance must not keep
+     * per-method state, subclasses which need such state can pass an
+     * analysis specialized for the IR, typically one delegating to this.
+     */
+    protected DataflowResult<Node, Fact> solve(
+            IR ir, DataflowAnalysis<Node, Fact> analysis) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        if (collectStats) {
+            SolverStats<Node> stats = new SolverStats<>(ir.getMethod());
+            DataflowResult<Node, Fact> result = Solver
+                    .makeInstrumentedSolver(analysis, solverKind, stats)
+                    .solve(cfg);
+            ir.storeResult(SolverStats.getKey(getId()), stats);
+            return result;
+        }
+        return analysis == this ? solver.solve(cfg)
+                : Solver.makeSolver(analysis, solverKind).solve(cfg);
     }
 
     /**
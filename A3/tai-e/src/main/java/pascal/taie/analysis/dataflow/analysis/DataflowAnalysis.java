@@ -49,6 +49,16 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of given CFG.
+     * Analyses whose facts depend on the analyzed method, e.g., facts
+     * indexed by the variables of the method, should override this method.
+     * By default, it is the same as {@link #newInitialFact()}.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
@@ -73,4 +83,15 @@ public interface DataflowAnalysis<Node, Fact> {
      * Edge Transfer function for this analysis.
      */
     Fact transferEdge(Edge<Node> edge, Fact nodeFact);
+
+    /**
+     * @return the analysis which recomputes facts when they are queried
+     * after the solving finishes, e.g., by results which drop some facts
+     * to save memory. Analyses which keep auxiliary data only to speed up
+     * solving should return an equivalent analysis without such data,
+     * so that the data can be released. By default, it is this analysis.
+     */
+    default DataflowAnalysis<Node, Fact> getQueryAnalysis() {
+        return this;
+    }
 }
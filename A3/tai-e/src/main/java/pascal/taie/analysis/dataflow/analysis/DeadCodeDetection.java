@@ -23,11 +23,14 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.analysis.dataflow.cache.ResultCodec;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
@@ -44,23 +47,90 @@ import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 
+/**
+ * Detects unreachable code and dead assignments with the results of
+ * constant propagation and live variable analysis.
+ * <p>
+ * If option {@code fused} is true, this analysis does not use the results
+ * of the other analyses, instead, it runs constant propagation which never
+ * follows the branches proved infeasible, and then live variable analysis
+ * only on the reachable statements along feasible edges. This avoids
+ * computing facts for unreachable code, and may find more dead code,
+ * as the facts from infeasible branches do not pollute the joins.
+ * <p>
+ * The results are cached on disk if option {@code cache} is given,
+ * see {@link ResultCache}. Unless {@code fused} is true, the results are
+ * cached only if the results of constant propagation and live variable
+ * analysis are also returned by result caches, whose keys identify them.
+ */
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * The analyses used by the fused engine, or null if it is disabled.
+     */
+    @Nullable
+    private final ConstantPropagation constProp;
+
+    @Nullable
+    private final LiveVariableAnalysis liveVars;
+
+    /**
+     * Caches the results on disk, which is null if caching is disabled.
+     */
+    @Nullable
+    private final ResultCache cache;
+
+    private final ResultCodec<Set<Stmt>> codec = ResultCodec.ofStmtSet();
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        if (getOptions().getBooleanOrDefault("fused", false)) {
+            constProp = new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID));
+            liveVars = new LiveVariableAnalysis(
+                    new AnalysisConfig(LiveVariableAnalysis.ID));
+        } else {
+            constProp = null;
+            liveVars = null;
+        }
+        cache = ResultCache.of(getOptions());
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        return cache == null ? detect(ir)
+                : cache.computeIfAbsent(this, getDependencies(), ir, codec,
+                        () -> detect(ir));
+    }
+
+    /**
+     * @return IDs of the analyses whose results in the IR are used
+     * by this analysis.
+     */
+    private List<String> getDependencies() {
+        return constProp != null ? List.of()
+                : List.of(ConstantPropagation.ID, LiveVariableAnalysis.ID);
+    }
+
+    private Set<Stmt> detect(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (constProp != null) {
+            return analyzeFused(ir, cfg);
+        }
         // obtain result of constant propagation
         DataflowResult<Stmt, CPFact> constants =
                 ir.getResult(ConstantPropagation.ID);
@@ -69,11 +139,201 @@ public class DeadCodeDetection extends MethodAnalysis {
                 ir.getResult(LiveVariableAnalysis.ID);
         // keep statements (dead code) sorted in the resulting set
         Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // TODO - finish me
-        // Your task is to recognize dead code in ir and add it to deadCode
+        // traverse the feasible edges from the entry, and meanwhile
+        // collect dead assignments in the reachable statements
+        Set<Stmt> reachable = Sets.newSet(cfg.getNumberOfNodes());
+        Queue<Stmt> workList = new ArrayDeque<>();
+        reachable.add(cfg.getEntry());
+        workList.add(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            if (isDeadAssignment(stmt, liveVars)) {
+                deadCode.add(stmt);
+            }
+            CPFact in = isBranch(stmt) ? constants.getInFact(stmt) : null;
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (isFeasible(edge, in) &&
+                        reachable.add(edge.getTarget())) {
+                    workList.add(edge.getTarget());
+                }
+            }
+        }
+        // all statements which are unreachable are dead code
+        addUnreachable(ir, reachable, deadCode);
+        return deadCode;
+    }
+
+    /**
+     * Fused engine of dead code detection.
+     */
+    private Set<Stmt> analyzeFused(IR ir, CFG<Stmt> cfg) {
+        Set<Stmt> reachable = Sets.newSet(cfg.getNumberOfNodes());
+        DataflowResult<Stmt, CPFact> constants =
+                propagateConstants(cfg, reachable);
+        DataflowResult<Stmt, SetFact<Var>> live =
+                computeLiveVars(cfg, reachable, constants);
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : reachable) {
+            if (isDeadAssignment(stmt, live)) {
+                deadCode.add(stmt);
+            }
+        }
+        addUnreachable(ir, reachable, deadCode);
         return deadCode;
     }
 
+    /**
+     * Runs constant propagation from the entry along feasible edges only.
+     *
+     * @param reachable receives the statements reached by the propagation
+     * @return the constants, where only the facts of reachable statements
+     * are available.
+     */
+    private DataflowResult<Stmt, CPFact> propagateConstants(
+            CFG<Stmt> cfg, Set<Stmt> reachable) {
+        StmtDataflowResult<CPFact> result = new StmtDataflowResult<>(cfg);
+        Stmt entry = cfg.getEntry();
+        result.setOutFact(entry, constProp.newBoundaryFact(cfg));
+        reachable.add(entry);
+        Queue<Stmt> workList = new SetQueue<>();
+        workList.addAll(cfg.getSuccsOf(entry));
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            CPFact in = result.getInFact(stmt);
+            CPFact out = result.getOutFact(stmt);
+            boolean reached = reachable.add(stmt);
+            if (reached) {
+                in = constProp.newInitialFact(cfg);
+                out = constProp.newInitialFact(cfg);
+                result.setInFact(stmt, in);
+                result.setOutFact(stmt, out);
+            }
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                Stmt source = edge.getSource();
+                if (reachable.contains(source) && isFeasible(edge,
+                        isBranch(source) ? result.getInFact(source) : null)) {
+                    constProp.meetInto(result.getOutFact(source), in);
+                }
+            }
+            if (constProp.transferNode(stmt, in, out) || reached) {
+                CPFact branchIn = isBranch(stmt) ? in : null;
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (isFeasible(edge, branchIn)) {
+                        workList.add(edge.getTarget());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs live variable analysis on the reachable statements
+     * along feasible edges only.
+     */
+    private DataflowResult<Stmt, SetFact<Var>> computeLiveVars(
+            CFG<Stmt> cfg, Set<Stmt> reachable,
+            DataflowResult<Stmt, CPFact> constants) {
+        StmtDataflowResult<SetFact<Var>> result = new StmtDataflowResult<>(cfg);
+        for (Stmt stmt : reachable) {
+            result.setInFact(stmt, cfg.isExit(stmt) ?
+                    liveVars.newBoundaryFact(cfg) : liveVars.newInitialFact(cfg));
+            result.setOutFact(stmt, liveVars.newInitialFact(cfg));
+        }
+        Queue<Stmt> workList = new SetQueue<>();
+        workList.addAll(reachable);
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            if (cfg.isExit(stmt)) {
+                continue;
+            }
+            SetFact<Var> out = result.getOutFact(stmt);
+            CPFact branchIn = isBranch(stmt) ? constants.getInFact(stmt) : null;
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (reachable.contains(edge.getTarget()) &&
+                        isFeasible(edge, branchIn)) {
+                    liveVars.meetInto(result.getInFact(edge.getTarget()), out);
+                }
+            }
+            if (liveVars.transferNode(stmt, result.getInFact(stmt), out)) {
+                for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                    Stmt source = edge.getSource();
+                    if (reachable.contains(source) && isFeasible(edge,
+                            isBranch(source) ? constants.getInFact(source) : null)) {
+                        workList.add(source);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the statements of given IR which are not reachable to dead code.
+     */
+    private static void addUnreachable(
+            IR ir, Set<Stmt> reachable, Set<Stmt> deadCode) {
+        for (Stmt stmt : ir) {
+            if (!reachable.contains(stmt)) {
+                deadCode.add(stmt);
+            }
+        }
+    }
+
+    /**
+     * @return true if given statement is an assignment whose left-hand side
+     * is not live after it, and whose right-hand side has no side effect.
+     */
+    private static boolean isDeadAssignment(
+            Stmt stmt, DataflowResult<Stmt, SetFact<Var>> liveVars) {
+        return stmt instanceof AssignStmt<?, ?> assign &&
+                assign.getLValue() instanceof Var lhs &&
+                !liveVars.getOutFact(stmt).contains(lhs) &&
+                hasNoSideEffect(assign.getRValue());
+    }
+
+    /**
+     * @return true if given statement may branch according to constants.
+     */
+    private static boolean isBranch(Stmt stmt) {
+        return stmt instanceof If || stmt instanceof SwitchStmt;
+    }
+
+    /**
+     * @param in the IN fact of the source of given edge if the source is
+     *           a branch (see {@link #isBranch(Stmt)}), otherwise null.
+     * @return false if given edge is a branch of an if or switch statement
+     * which is never taken according to the constants, otherwise true.
+     * As in sparse conditional constant propagation, an undefined condition
+     * enables no branch (yet), as the branch cannot be reached with a
+     * defined condition.
+     */
+    private static boolean isFeasible(Edge<Stmt> edge, @Nullable CPFact in) {
+        Stmt source = edge.getSource();
+        if (source instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(ifStmt.getCondition(), in);
+            if (cond.isUndef()) {
+                return false;
+            } else if (cond.isConstant()) {
+                return edge.getKind() == (cond.getConstant() == 1 ?
+                        Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+            }
+        } else if (source instanceof SwitchStmt switchStmt) {
+            Value value = in.get(switchStmt.getVar());
+            if (value.isUndef()) {
+                return false;
+            } else if (value.isConstant()) {
+                int c = value.getConstant();
+                if (edge.isSwitchCase()) {
+                    return edge.getCaseValue() == c;
+                } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                    return !switchStmt.getCaseValues().contains(c);
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
@@ -0,0 +1,311 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Base class of gen/kill analyses, whose transfer functions are
+ * {@code OUT = gen + (IN - kill)} for forward analyses, and
+ * {@code IN = gen + (OUT - kill)} for backward analyses,
+ * where + and - are set union and difference.
+ * <p>
+ * Subclasses only specify the gen and kill sets of each node via
+ * {@link #computeGenKill}. When analyzing a method, the sets of all
+ * nodes are computed once before solving, and then each transfer only
+ * combines the facts with the precomputed sets, without inspecting the
+ * node again. The sets usually contain only a few elements, so they are
+ * stored sparsely, see {@link Summaries}. If the facts are
+ * {@link BitSetFact}s, as returned by {@link #newInitialFact(CFG)},
+ * the combination is performed word by word.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <E>    type of elements of the facts
+ */
+public abstract class GenKillAnalysis<Node, E>
+        extends AbstractDataflowAnalysis<Node, SetFact<E>> {
+
+    private static final int[] NO_INDEXES = new int[0];
+
+    private static final Object[] NO_ELEMENTS = new Object[0];
+
+    protected GenKillAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * Adds the elements generated and killed by given node
+     * to given gen and kill sets respectively.
+     */
+    protected abstract void computeGenKill(
+            Node node, SetFact<E> gen, SetFact<E> kill);
+
+    @Override
+    public DataflowResult<Node, SetFact<E>> analyze(IR ir) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        return solve(ir, new SummarizedAnalysis(new Summaries(cfg)));
+    }
+
+    /**
+     * Transfers given node by computing its gen and kill sets on the fly.
+     * This is used when the node is transferred outside the solving of
+     * {@link #analyze(IR)}, e.g., by other analyses, or when the result
+     * of a demand-driven solver recomputes facts.
+     */
+    @Override
+    public boolean transferNode(Node node, SetFact<E> in, SetFact<E> out) {
+        SetFact<E> gen = new SetFact<>();
+        SetFact<E> kill = new SetFact<>();
+        computeGenKill(node, gen, kill);
+        SetFact<E> source = isForward() ? in : out;
+        SetFact<E> target = isForward() ? out : in;
+        if (source instanceof BitSetFact<E> bitSource) {
+            Indexer<E> indexer = bitSource.getIndexer();
+            return applyGenKill(source, toIndexes(gen, indexer),
+                    toIndexes(kill, indexer), indexer, target);
+        }
+        return applyGenKill(source, gen.stream().toArray(),
+                kill.stream().toArray(), target);
+    }
+
+    /**
+     * @return the indexes of the elements of given set, in ascending order.
+     */
+    private static <E> int[] toIndexes(SetFact<E> set, Indexer<E> indexer) {
+        if (set.isEmpty()) {
+            return NO_INDEXES;
+        }
+        int[] indexes = new int[set.size()];
+        int[] i = {0};
+        set.forEach(e -> indexes[i[0]++] = indexer.getIndex(e));
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    /**
+     * Sets target to {@code gen + (source - kill)}, where gen and kill
+     * are given as the indexes of their elements.
+     *
+     * @return true if target changed as a result of the call, otherwise false.
+     */
+    private static <E> boolean applyGenKill(SetFact<E> source,
+            int[] gen, int[] kill, Indexer<E> indexer, SetFact<E> target) {
+        if (target instanceof BitSetFact<E> bitTarget &&
+                source instanceof BitSetFact<E> bitSource &&
+                bitSource.getIndexer().equals(indexer)) {
+            return bitTarget.setToGenKill(bitSource, gen, kill);
+        }
+        Object[] genElems = new Object[gen.length];
+        Arrays.setAll(genElems, i -> indexer.getObject(gen[i]));
+        Object[] killElems = new Object[kill.length];
+        Arrays.setAll(killElems, i -> indexer.getObject(kill[i]));
+        return applyGenKill(source, genElems, killElems, target);
+    }
+
+    /**
+     * Sets target to {@code gen + (source - kill)}.
+     *
+     * @return true if target changed as a result of the call, otherwise false.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> boolean applyGenKill(SetFact<E> source,
+            Object[] gen, Object[] kill, SetFact<E> target) {
+        SetFact<E> result = source.copy();
+        for (Object e : kill) {
+            result.remove((E) e);
+        }
+        for (Object e : gen) {
+            result.add((E) e);
+        }
+        if (result.equals(target)) {
+            return false;
+        }
+        target.set(result);
+        return true;
+    }
+
+    /**
+     * Gen and kill sets of the nodes of a CFG.
+     * <p>
+     * The sets are stored sparsely: as the sorted indexes of their elements
+     * if the facts of the CFG are {@link BitSetFact}s, otherwise as arrays
+     * of their elements. For CFGs of {@link Stmt}s, the sets are stored in
+     * arrays indexed by {@link CompactCFG#getIndex(Stmt)}.
+     */
+    private final class Summaries {
+
+        /**
+         * Indexer of the elements, or null if the facts are not {@link BitSetFact}s.
+         */
+        @Nullable
+        private final Indexer<E> indexer;
+
+        @Nullable
+        private final CompactCFG compactCFG;
+
+        /**
+         * Indexes of the nodes for CFGs of other nodes than {@link Stmt}s.
+         */
+        @Nullable
+        private final Map<Node, Integer> nodeIndexes;
+
+        /**
+         * Gen and kill sets of each node, which are int[] if
+         * {@link #indexer} is not null, otherwise Object[].
+         */
+        private final Object[] gens;
+
+        private final Object[] kills;
+
+        @SuppressWarnings("unchecked")
+        private Summaries(CFG<Node> cfg) {
+            indexer = newInitialFact(cfg) instanceof BitSetFact<E> fact
+                    ? fact.getIndexer() : null;
+            if (cfg.getEntry() instanceof Stmt) {
+                compactCFG = CompactCFG.of((CFG<Stmt>) cfg);
+                nodeIndexes = null;
+            } else {
+                compactCFG = null;
+                nodeIndexes = Maps.newMap(cfg.getNumberOfNodes());
+                for (Node node : cfg) {
+                    nodeIndexes.put(node, nodeIndexes.size());
+                }
+            }
+            gens = new Object[cfg.getNumberOfNodes()];
+            kills = new Object[cfg.getNumberOfNodes()];
+            // scratch sets, which are small, so hash-based sets suffice
+            SetFact<E> gen = new SetFact<>();
+            SetFact<E> kill = new SetFact<>();
+            for (Node node : cfg) {
+                gen.clear();
+                kill.clear();
+                computeGenKill(node, gen, kill);
+                int i = indexOf(node);
+                gens[i] = toArray(gen);
+                kills[i] = toArray(kill);
+            }
+        }
+
+        private int indexOf(Node node) {
+            return compactCFG != null
+                    ? compactCFG.getIndex((Stmt) node)
+                    : nodeIndexes.get(node);
+        }
+
+        private Object toArray(SetFact<E> set) {
+            if (indexer != null) {
+                return toIndexes(set, indexer);
+            }
+            return set.isEmpty() ? NO_ELEMENTS : set.stream().toArray();
+        }
+
+        /**
+         * Sets target to {@code gen + (source - kill)} of given node.
+         */
+        private boolean apply(Node node, SetFact<E> source, SetFact<E> target) {
+            int i = indexOf(node);
+            return indexer != null
+                    ? applyGenKill(source, (int[]) gens[i], (int[]) kills[i], indexer, target)
+                    : applyGenKill(source, (Object[]) gens[i], (Object[]) kills[i], target);
+        }
+    }
+
+    /**
+     * Gen/kill analysis of a specific method, whose transfers use
+     * the precomputed gen and kill sets of the method.
+     */
+    private class SummarizedAnalysis implements DataflowAnalysis<Node, SetFact<E>> {
+
+        private final Summaries summaries;
+
+        private SummarizedAnalysis(Summaries summaries) {
+            this.summaries = summaries;
+        }
+
+        @Override
+        public boolean isForward() {
+            return GenKillAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<E> newBoundaryFact(CFG<Node> cfg) {
+            return GenKillAnalysis.this.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public SetFact<E> newInitialFact() {
+            return GenKillAnalysis.this.newInitialFact();
+        }
+
+        @Override
+        public SetFact<E> newInitialFact(CFG<Node> cfg) {
+            return GenKillAnalysis.this.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(SetFact<E> fact, SetFact<E> target) {
+            GenKillAnalysis.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, SetFact<E> in, SetFact<E> out) {
+            return isForward()
+                    ? summaries.apply(node, in, out)
+                    : summaries.apply(node, out, in);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return GenKillAnalysis.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public SetFact<E> transferEdge(Edge<Node> edge, SetFact<E> nodeFact) {
+            return GenKillAnalysis.this.transferEdge(edge, nodeFact);
+        }
+
+        /**
+         * Queries compute the gen and kill sets on the fly,
+         * so that the summaries can be released after solving.
+         */
+        @Override
+        public DataflowAnalysis<Node, SetFact<E>> getQueryAnalysis() {
+            return GenKillAnalysis.this;
+        }
+    }
+}
@@ -22,22 +22,58 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.analysis.dataflow.cache.ResultCodec;
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexer;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Implementation of classic live variable analysis.
+ * <p>
+ * The facts are {@link BitSetFact}s indexed by {@link Var#getIndex()},
+ * thus they are bound to the IR of the analyzed method, and are
+ * created by {@link #newBoundaryFact(CFG)} and {@link #newInitialFact(CFG)}.
+ * As a {@link GenKillAnalysis}, the variables used by a statement are its
+ * gen set, and the variable defined by it is its kill set.
+ * <p>
+ * The results are cached on disk if option {@code cache} is given and
+ * option {@code stats} is not, see {@link ResultCache}.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends GenKillAnalysis<Stmt, Var> {
 
     public static final String ID = "livevar";
 
+    /**
+     * Caches the results on disk, which is null if caching is disabled.
+     */
+    @Nullable
+    private final ResultCache cache;
+
+    private final ResultCodec<DataflowResult<Stmt, SetFact<Var>>> codec =
+            ResultCodec.ofDataflowResult(new LiveVarsCodec());
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        cache = openResultCache();
+    }
+
+    @Override
+    public DataflowResult<Stmt, SetFact<Var>> analyze(IR ir) {
+        return cache == null ? super.analyze(ir)
+                : cache.computeIfAbsent(this, ir, codec, () -> super.analyze(ir));
     }
 
     @Override
@@ -47,24 +83,96 @@ public class LiveVariableAnalysis extends
 
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return null;
+        return newInitialFact(cfg);
     }
 
+    /**
+     * @return a new hash-based fact, which is not bound to any method.
+     * The solvers call {@link #newInitialFact(CFG)} to create the more
+     * efficient bit-vector facts instead.
+     */
     @Override
     public SetFact<Var> newInitialFact() {
-        // TODO - finish me
-        return null;
+        return new SetFact<>();
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        IR ir = cfg.getIR();
+        return new BitSetFact<>(new VarIndexer(ir), ir.getVars().size());
     }
 
     @Override
     public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
-        // TODO - finish me
+        target.union(fact);
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
-        return false;
+    protected void computeGenKill(Stmt stmt, SetFact<Var> gen, SetFact<Var> kill) {
+        stmt.getDef().ifPresent(def -> {
+            if (def instanceof Var var) {
+                kill.add(var);
+            }
+        });
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                gen.add(var);
+            }
+        }
+    }
+
+    /**
+     * Indexes the variables of an IR by {@link Var#getIndex()}.
+     */
+    private record VarIndexer(IR ir) implements Indexer<Var> {
+
+        @Override
+        public int getIndex(Var var) {
+            return var.getIndex();
+        }
+
+        @Override
+        public Var getObject(int index) {
+            return ir.getVar(index);
+        }
+    }
+
+    /**
+     * Encodes a fact as the number of live variables, followed by
+     * the deltas of their indexes in ascending order.
+     */
+    private class LiveVarsCodec implements ResultCodec.FactCodec<SetFact<Var>> {
+
+        @Override
+        public void encode(SetFact<Var> fact, DataOutput out) throws IOException {
+            int[] indexes = fact.stream()
+                    .mapToInt(Var::getIndex)
+                    .sorted()
+                    .toArray();
+            ResultCodec.writeVarInt(out, indexes.length);
+            int last = 0;
+            for (int index : indexes) {
+                ResultCodec.writeVarInt(out, index - last);
+                last = index;
+            }
+        }
+
+        @Override
+        public SetFact<Var> decode(CFG<Stmt> cfg, DataInput in) throws IOException {
+            IR ir = cfg.getIR();
+            SetFact<Var> fact = newInitialFact(cfg);
+            int size = ResultCodec.readVarInt(in);
+            int index = 0;
+            for (int i = 0; i < size; ++i) {
+                index += ResultCodec.readVarInt(in);
+                fact.add(ir.getVar(index));
+            }
+            return fact;
+        }
+
+        @Override
+        public SetFact<Var> copy(SetFact<Var> fact) {
+            return fact.copy();
+        }
     }
 }
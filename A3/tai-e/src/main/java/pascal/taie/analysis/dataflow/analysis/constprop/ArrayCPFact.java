@@ -0,0 +1,332 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link CPFact} which stores the {@link PackedValue encoded} values
+ * in a {@code long[]} indexed by {@link Var#getIndex()}.
+ * <p>
+ * Accessing the values via {@link #getPacked(Var)} and
+ * {@link #updatePacked(Var, long)}, and operations between two ArrayCPFacts
+ * of the same {@link IR} do not allocate any objects. In exchange,
+ * {@link #copy()} takes time linear to the number of variables in the IR.
+ */
+public class ArrayCPFact extends CPFact {
+
+    private final IR ir;
+
+    private final long[] values;
+
+    public ArrayCPFact(IR ir) {
+        this(ir, new long[ir.getVars().size()]);
+    }
+
+    private ArrayCPFact(IR ir, long[] values) {
+        // the hash code maintained by MapFact is unused,
+        // as equals() and hashCode() are overridden
+        super(new ArrayMap(ir, values), 0);
+        this.ir = ir;
+        this.values = values;
+    }
+
+    @Override
+    public Value get(Var key) {
+        return PackedValue.toValue(values[key.getIndex()]);
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        return updatePacked(key, PackedValue.fromValue(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        int i = key.getIndex();
+        long old = values[i];
+        if (PackedValue.isUndef(old)) {
+            return null;
+        }
+        values[i] = PackedValue.UNDEF;
+        modified(0);
+        return PackedValue.toValue(old);
+    }
+
+    @Override
+    public long getPacked(Var key) {
+        return values[key.getIndex()];
+    }
+
+    @Override
+    public boolean updatePacked(Var key, long value) {
+        int i = key.getIndex();
+        if (values[i] != value) {
+            values[i] = value;
+            modified(0);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean copyWith(CPFact fact, @Nullable Var key, long value) {
+        if (!isSameIR(fact)) {
+            return super.copyWith(fact, key, value);
+        }
+        long[] src = ((ArrayCPFact) fact).values;
+        int skip = key != null ? key.getIndex() : -1;
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long v = i == skip ? value : src[i];
+            if (values[i] != v) {
+                values[i] = v;
+                changed = true;
+            }
+        }
+        if (changed) {
+            modified(0);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean retainAll(SetFact<Var> vars) {
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            if (!PackedValue.isUndef(values[i]) && !vars.contains(ir.getVar(i))) {
+                values[i] = PackedValue.UNDEF;
+                changed = true;
+            }
+        }
+        if (changed) {
+            modified(0);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (!isSameIR(fact)) {
+            return super.copyFrom(fact);
+        }
+        long[] src = ((ArrayCPFact) fact).values;
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long v = src[i];
+            if (!PackedValue.isUndef(v) && values[i] != v) {
+                values[i] = v;
+                changed = true;
+            }
+        }
+        if (changed) {
+            modified(0);
+        }
+        return changed;
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meetWith(ArrayCPFact fact) {
+        if (!isSameIR(fact)) {
+            throw new IllegalArgumentException(
+                    "Cannot meet facts of different IRs");
+        }
+        boolean changed = false;
+        for (int i = 0; i < values.length; ++i) {
+            long v = PackedValue.meet(values[i], fact.values[i]);
+            if (values[i] != v) {
+                values[i] = v;
+                changed = true;
+            }
+        }
+        if (changed) {
+            modified(0);
+        }
+        return changed;
+    }
+
+    private boolean isSameIR(MapFact<Var, Value> fact) {
+        return fact instanceof ArrayCPFact other && other.ir == ir;
+    }
+
+    @Override
+    public ArrayCPFact copy() {
+        return new ArrayCPFact(ir, values.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, PackedValue.UNDEF);
+        modified(0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ArrayCPFact that = (ArrayCPFact) o;
+        return ir == that.ir && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    /**
+     * {@link Map} view of the values, which is required by {@link MapFact}.
+     * As in {@link CPFact}, UNDEF variables are absent in this map.
+     */
+    private static class ArrayMap extends AbstractMap<Var, Value> {
+
+        private final IR ir;
+
+        private final long[] values;
+
+        private ArrayMap(IR ir, long[] values) {
+            this.ir = ir;
+            this.values = values;
+        }
+
+        @Override
+        public Value get(Object key) {
+            if (key instanceof Var var) {
+                long v = values[var.getIndex()];
+                return PackedValue.isUndef(v) ? null : PackedValue.toValue(v);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Var var &&
+                    !PackedValue.isUndef(values[var.getIndex()]);
+        }
+
+        @Override
+        public Value put(Var key, Value value) {
+            Value old = get(key);
+            values[key.getIndex()] = PackedValue.fromValue(value);
+            return old;
+        }
+
+        @Override
+        public Value remove(Object key) {
+            Value old = get(key);
+            if (old != null) {
+                values[((Var) key).getIndex()] = PackedValue.UNDEF;
+            }
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(values, PackedValue.UNDEF);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long v : values) {
+                if (!PackedValue.isUndef(v)) {
+                    ++size;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Var, Value>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Var, Value>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ArrayMap.this.size();
+                }
+            };
+        }
+
+        private class EntryIterator implements Iterator<Entry<Var, Value>> {
+
+            private int next = advance(0);
+
+            private int last = -1;
+
+            private int advance(int from) {
+                while (from < values.length && PackedValue.isUndef(values[from])) {
+                    ++from;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public Entry<Var, Value> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance(next + 1);
+                return new SimpleImmutableEntry<>(
+                        ir.getVar(last), PackedValue.toValue(values[last]));
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                values[last] = PackedValue.UNDEF;
+                last = -1;
+            }
+        }
+    }
+}
@@ -23,9 +23,13 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.PersistentIndexMap;
 
-import java.util.Collections;
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,15 +41,46 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * The mappings are stored in a {@link PersistentIndexMap} indexed by
+ * {@link Var#getIndex()}, so that {@link #copy()} takes constant time,
+ * and a copy shares the unmodified part of the mappings with this fact.
+ * Subclasses may store the mappings differently, e.g., {@link ArrayCPFact}.
  */
 public class CPFact extends MapFact<Var, Value> {
 
+    /**
+     * Memo of the last call of {@link #setTo}: the source fact and its
+     * stamp, the key and the value, and the stamp of this fact after
+     * the call. If all of them are unchanged, calling setTo with the
+     * same arguments again cannot change this fact.
+     * <p>
+     * The source fact is weakly referenced, so that the memo does not
+     * retain the facts dropped by the result, e.g., after compaction
+     * by the demand-driven solver.
+     */
+    @Nullable
+    private WeakReference<CPFact> lastSource;
+
+    private int lastSourceStamp;
+
+    private Var lastKey;
+
+    private long lastValue;
+
+    private int lastStamp;
+
     public CPFact() {
-        this(Collections.emptyMap());
+        this(new PersistentIndexMap<>(), 0);
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    /**
+     * Constructs a CPFact backed by given map, which is used directly.
+     *
+     * @param hash the hash code of map.
+     */
+    protected CPFact(Map<Var, Value> map, int hash) {
+        super(map, hash);
     }
 
     /**
@@ -69,8 +104,103 @@ public class CPFact extends MapFact<Var, Value> {
         }
     }
 
+    /**
+     * @return the {@link PackedValue encoded} value of given variable
+     * in this fact.
+     */
+    public long getPacked(Var key) {
+        Value value = map.get(key);
+        return value == null ? PackedValue.UNDEF : PackedValue.fromValue(value);
+    }
+
+    /**
+     * Updates the variable-value mapping in this fact with
+     * {@link PackedValue encoded} value.
+     *
+     * @return if the update changes this fact.
+     */
+    public boolean updatePacked(Var key, long value) {
+        return update(key, PackedValue.toValue(value));
+    }
+
+    /**
+     * Sets the content of this fact to the one of given fact, except that
+     * variable key (if not null) is mapped to {@link PackedValue encoded}
+     * value. This is the typical effect of transfer functions.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setTo(CPFact fact, @Nullable Var key, long value) {
+        boolean sameSource = lastSource != null && lastSource.get() == fact;
+        if (sameSource && fact.getStamp() == lastSourceStamp &&
+                key == lastKey && value == lastValue && getStamp() == lastStamp) {
+            return false;
+        }
+        boolean changed = copyWith(fact, key, value);
+        if (!sameSource) {
+            lastSource = new WeakReference<>(fact);
+        }
+        lastSourceStamp = fact.getStamp();
+        lastKey = key;
+        lastValue = value;
+        lastStamp = getStamp();
+        return changed;
+    }
+
+    /**
+     * Implements {@link #setTo} without consulting its memo.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    protected boolean copyWith(CPFact fact, @Nullable Var key, long value) {
+        CPFact result = fact.copy();
+        if (key != null) {
+            result.updatePacked(key, value);
+        }
+        // facts of the same class can tell inequality by hash codes
+        if (getClass() == result.getClass()
+                ? equals(result) : map.equals(result.map)) {
+            return false;
+        }
+        clear();
+        copyFrom(result);
+        return true;
+    }
+
+    /**
+     * Removes the variables which are not contained in given set
+     * from this fact, i.e., sets them to UNDEF.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean retainAll(SetFact<Var> vars) {
+        List<Var> removed = map.keySet()
+                .stream()
+                .filter(var -> !vars.contains(var))
+                .toList();
+        removed.forEach(this::remove);
+        return !removed.isEmpty();
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (map instanceof PersistentIndexMap<Var, Value> persistentMap &&
+                persistentMap.isEmpty() &&
+                fact instanceof CPFact other &&
+                other.map instanceof PersistentIndexMap<Var, Value> otherMap) {
+            // share the mappings of other fact instead of copying them
+            persistentMap.setTo(otherMap);
+            if (map.isEmpty()) {
+                return false;
+            }
+            modified(other.hashCode());
+            return true;
+        }
+        return super.copyFrom(fact);
+    }
+
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(((PersistentIndexMap<Var, Value>) map).copy(), hashCode());
     }
 }
@@ -23,30 +23,153 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.cache.ResultCache;
+import pascal.taie.analysis.dataflow.cache.ResultCodec;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
-import pascal.taie.ir.exp.ArithmeticExp;
 import pascal.taie.ir.exp.BinaryExp;
-import pascal.taie.ir.exp.BitwiseExp;
-import pascal.taie.ir.exp.ConditionExp;
 import pascal.taie.ir.exp.Exp;
 import pascal.taie.ir.exp.IntLiteral;
-import pascal.taie.ir.exp.ShiftExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
-import pascal.taie.util.AnalysisException;
 
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implementation of constant propagation for int values.
+ * <p>
+ * If option {@code prune-dead} is true, each OUT fact keeps only the
+ * variables which are live after the statement, according to the result
+ * of {@link LiveVariableAnalysis} (which is computed here if it is not
+ * available in the IR yet). As every variable live at the IN of
+ * a statement is live at the OUT of all its predecessors, the value of
+ * every variable at its uses is not affected, while the facts become
+ * smaller, which makes copies, meets and comparisons of facts cheaper.
+ * Note that the values of dead variables are absent (i.e., UNDEF)
+ * in the pruned facts.
+ * <p>
+ * If option {@code engine} is {@code sparse}, the constants are computed
+ * by {@link SparseConstantPropagation} instead of the configured solver,
+ * and the result is a view which builds the facts on each query.
+ * The default engine is {@code dense}.
+ * <p>
+ * The results are cached on disk if option {@code cache} is given and
+ * option {@code stats} is not, see {@link ResultCache}.
+ */
 public class ConstantPropagation extends
         AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * If true, uses {@link ArrayCPFact} instead of {@link CPFact}.
+     */
+    private final boolean arrayFact;
+
+    /**
+     * Computes the live variables for pruning the facts if they are not
+     * available in the IR, which is null if pruning is disabled.
+     */
+    @Nullable
+    private final LiveVariableAnalysis liveVarAnalysis;
+
+    /**
+     * If true, uses {@link SparseConstantPropagation}.
+     */
+    private final boolean sparse;
+
+    /**
+     * Caches the results on disk, which is null if caching is disabled.
+     */
+    @Nullable
+    private final ResultCache cache;
+
+    private final ResultCodec<DataflowResult<Stmt, CPFact>> codec =
+            ResultCodec.ofDataflowResult(new CPFactCodec());
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        String fact = getOptions().getString("fact");
+        if (fact == null || fact.equals("persistent")) {
+            arrayFact = false;
+        } else if (fact.equals("array")) {
+            arrayFact = true;
+        } else {
+            throw new ConfigException("Unknown fact: " + fact);
+        }
+        liveVarAnalysis = getOptions().getBooleanOrDefault("prune-dead", false)
+                ? new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID))
+                : null;
+        String engine = getOptions().getString("engine");
+        if (engine == null || engine.equals("dense")) {
+            sparse = false;
+        } else if (engine.equals("sparse")) {
+            sparse = true;
+        } else {
+            throw new ConfigException("Unknown engine: " + engine);
+        }
+        if (sparse && liveVarAnalysis != null) {
+            throw new ConfigException(
+                    "prune-dead is not applicable to the sparse engine");
+        }
+        cache = openResultCache();
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        return cache == null ? propagate(ir)
+                : cache.computeIfAbsent(this, getDependencies(), ir, codec,
+                        () -> propagate(ir));
+    }
+
+    /**
+     * @return IDs of the analyses whose results in the IR may be used
+     * by this analysis.
+     */
+    private List<String> getDependencies() {
+        return liveVarAnalysis != null
+                ? List.of(LiveVariableAnalysis.ID) : List.of();
+    }
+
+    private DataflowResult<Stmt, CPFact> propagate(IR ir) {
+        if (sparse) {
+            return SparseConstantPropagation.solve(this, ir.getResult(CFGBuilder.ID));
+        }
+        if (liveVarAnalysis == null) {
+            return super.analyze(ir);
+        }
+        DataflowResult<Stmt, SetFact<Var>> liveVars =
+                ir.getResult(LiveVariableAnalysis.ID);
+        if (liveVars == null) {
+            liveVars = liveVarAnalysis.analyze(ir);
+        }
+        // collects the OUT facts of live variables up front, as they are
+        // looked up in every transfer, and may be recomputed on each
+        // lookup in the results of some solvers
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        StmtDataflowResult<SetFact<Var>> liveOuts = new StmtDataflowResult<>(cfg);
+        for (Stmt stmt : cfg) {
+            liveOuts.setOutFact(stmt, liveVars.getOutFact(stmt));
+        }
+        return solve(ir, new PrunedConstantPropagation(liveOuts, liveVars));
     }
 
     @Override
@@ -56,33 +179,78 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return null;
+        CPFact fact = newInitialFact(cfg);
+        cfg.getIR().getParams().forEach(param -> {
+            if (canHoldInt(param)) {
+                fact.update(param, Value.getNAC());
+            }
+        });
+        return fact;
     }
 
     @Override
     public CPFact newInitialFact() {
-        // TODO - finish me
-        return null;
+        return new CPFact();
+    }
+
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return arrayFact ? new ArrayCPFact(cfg.getIR()) : newInitialFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        // TODO - finish me
+        if (fact instanceof ArrayCPFact arrayFact &&
+                target instanceof ArrayCPFact arrayTarget) {
+            arrayTarget.meetWith(arrayFact);
+        } else {
+            fact.forEach((var, value) ->
+                    target.update(var, meetValue(value, target.get(var))));
+        }
     }
 
     /**
      * Meets two Values.
      */
     public Value meetValue(Value v1, Value v2) {
-        // TODO - finish me
-        return null;
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef() || v1.equals(v2)) {
+            return v1;
+        } else {
+            return Value.getNAC();
+        }
     }
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-        return false;
+        return transferNode(stmt, in, out, null);
+    }
+
+    /**
+     * Transfer function which additionally removes the variables
+     * absent in liveOut (if not null) from the OUT fact.
+     */
+    private boolean transferNode(Stmt stmt, CPFact in, CPFact out,
+                                 @Nullable SetFact<Var> liveOut) {
+        Var lhs = null;
+        long value = PackedValue.UNDEF;
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var var && canHoldInt(var)) {
+            lhs = var;
+            value = evaluatePacked(def.getRValue(), in);
+        }
+        if (liveOut == null) {
+            return out.setTo(in, lhs, value);
+        }
+        CPFact result = in.copy();
+        if (lhs != null) {
+            result.updatePacked(lhs, value);
+        }
+        result.retainAll(liveOut);
+        return out.setTo(result, null, PackedValue.UNDEF);
     }
 
     /**
@@ -111,7 +279,178 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        // TODO - finish me
-        return null;
+        return PackedValue.toValue(evaluatePacked(exp, in));
+    }
+
+    /**
+     * Evaluates the {@link PackedValue encoded} value of given expression.
+     * Unlike {@link #evaluate(Exp, CPFact)}, this method does not allocate
+     * {@link Value}s, which makes it suitable for transfer functions.
+     *
+     * @param exp the expression to be evaluated
+     * @param in  IN fact of the statement
+     * @return the resulting encoded value
+     */
+    public static long evaluatePacked(Exp exp, CPFact in) {
+        if (exp instanceof IntLiteral literal) {
+            return PackedValue.makeConstant(literal.getValue());
+        } else if (exp instanceof Var var) {
+            return valueOf(var, in);
+        } else if (exp instanceof BinaryExp binary) {
+            return PackedValue.evaluate(binary.getOperator(),
+                    valueOf(binary.getOperand1(), in),
+                    valueOf(binary.getOperand2(), in));
+        } else {
+            return PackedValue.NAC;
+        }
+    }
+
+    /**
+     * @return the encoded value of given variable in given fact,
+     * or NAC if the variable cannot hold integer value.
+     */
+    private static long valueOf(Var var, CPFact in) {
+        return canHoldInt(var) ? in.getPacked(var) : PackedValue.NAC;
+    }
+
+    /**
+     * Constant propagation of a specific method, whose OUT facts
+     * are pruned by the live variables of the method.
+     */
+    private class PrunedConstantPropagation
+            implements DataflowAnalysis<Stmt, CPFact> {
+
+        private final DataflowResult<Stmt, SetFact<Var>> liveOuts;
+
+        private final DataflowResult<Stmt, SetFact<Var>> liveVars;
+
+        /**
+         * @param liveOuts OUT facts of live variables which are looked up
+         *                 during solving, may be a copy of those in liveVars.
+         * @param liveVars result of live variable analysis.
+         */
+        private PrunedConstantPropagation(
+                DataflowResult<Stmt, SetFact<Var>> liveOuts,
+                DataflowResult<Stmt, SetFact<Var>> liveVars) {
+            this.liveOuts = liveOuts;
+            this.liveVars = liveVars;
+        }
+
+        @Override
+        public boolean isForward() {
+            return true;
+        }
+
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            CPFact fact = ConstantPropagation.this.newBoundaryFact(cfg);
+            fact.retainAll(liveOuts.getOutFact(cfg.getEntry()));
+            return fact;
+        }
+
+        @Override
+        public CPFact newInitialFact() {
+            return ConstantPropagation.this.newInitialFact();
+        }
+
+        @Override
+        public CPFact newInitialFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            ConstantPropagation.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            return ConstantPropagation.this.transferNode(
+                    stmt, in, out, liveOuts.getOutFact(stmt));
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Queries look up the live variables in the result of
+         * live variable analysis, so that the copy can be released.
+         */
+        @Override
+        public DataflowAnalysis<Stmt, CPFact> getQueryAnalysis() {
+            return liveOuts == liveVars ? this
+                    : new PrunedConstantPropagation(liveVars, liveVars);
+        }
+    }
+
+    /**
+     * Encodes a fact as the number of its entries, followed by the entries
+     * in ascending order of variable indexes. Each entry consists of
+     * the delta of the variable index, and the tag and the constant
+     * (if any) of the value.
+     */
+    private class CPFactCodec implements ResultCodec.FactCodec<CPFact> {
+
+        private static final byte NAC = 0;
+
+        private static final byte CONSTANT = 1;
+
+        private static final byte UNDEF = 2;
+
+        @Override
+        public void encode(CPFact fact, DataOutput out) throws IOException {
+            Var[] vars = fact.keySet().toArray(new Var[0]);
+            Arrays.sort(vars, Comparator.comparingInt(Var::getIndex));
+            ResultCodec.writeVarInt(out, vars.length);
+            int last = 0;
+            for (Var var : vars) {
+                ResultCodec.writeVarInt(out, var.getIndex() - last);
+                last = var.getIndex();
+                Value value = fact.get(var);
+                if (value.isConstant()) {
+                    out.writeByte(CONSTANT);
+                    int c = value.getConstant();
+                    // zigzag encoding, which makes small negative numbers short
+                    ResultCodec.writeVarInt(out, (c << 1) ^ (c >> 31));
+                } else {
+                    out.writeByte(value.isNAC() ? NAC : UNDEF);
+                }
+            }
+        }
+
+        @Override
+        public CPFact decode(CFG<Stmt> cfg, DataInput in) throws IOException {
+            IR ir = cfg.getIR();
+            CPFact fact = newInitialFact(cfg);
+            int size = ResultCodec.readVarInt(in);
+            int index = 0;
+            for (int i = 0; i < size; ++i) {
+                index += ResultCodec.readVarInt(in);
+                byte tag = in.readByte();
+                Value value = switch (tag) {
+                    case NAC -> Value.getNAC();
+                    case CONSTANT -> {
+                        int c = ResultCodec.readVarInt(in);
+                        yield Value.makeConstant((c >>> 1) ^ -(c & 1));
+                    }
+                    case UNDEF -> Value.getUndef();
+                    default -> throw new IOException("Invalid tag: " + tag);
+                };
+                fact.update(ir.getVar(index), value);
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact copy(CPFact fact) {
+            return fact.copy();
+        }
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.util.AnalysisException;
+
+/**
+ * Primitive encoding of {@link Value}s, which allows constant propagation
+ * to manipulate lattice values without allocating objects.
+ * <p>
+ * A lattice value is encoded as a {@code long}: the high 32 bits hold
+ * its kind, and for constants, the low 32 bits hold the integer.
+ * UNDEF is encoded as 0, so that a freshly allocated {@code long[]}
+ * represents a fact where all variables are UNDEF.
+ */
+public final class PackedValue {
+
+    /**
+     * The encoding of UNDEF.
+     */
+    public static final long UNDEF = 0L;
+
+    /**
+     * The encoding of NAC.
+     */
+    public static final long NAC = 2L << 32;
+
+    private static final long CONSTANT_TAG = 1L << 32;
+
+    private static final long KIND_MASK = 0xffffffffL << 32;
+
+    private PackedValue() {
+    }
+
+    /**
+     * @return the encoding of the constant for given value.
+     */
+    public static long makeConstant(int value) {
+        return CONSTANT_TAG | (value & 0xffffffffL);
+    }
+
+    /**
+     * @return true if given encoded value is UNDEF, otherwise false.
+     */
+    public static boolean isUndef(long v) {
+        return v == UNDEF;
+    }
+
+    /**
+     * @return true if given encoded value represents a constant,
+     * otherwise false.
+     */
+    public static boolean isConstant(long v) {
+        return (v & KIND_MASK) == CONSTANT_TAG;
+    }
+
+    /**
+     * @return true if given encoded value is NAC, otherwise false.
+     */
+    public static boolean isNAC(long v) {
+        return v == NAC;
+    }
+
+    /**
+     * @return the integer of given encoded constant.
+     * @throws AnalysisException if given value is not a constant
+     */
+    public static int getConstant(long v) {
+        if (!isConstant(v)) {
+            throw new AnalysisException(toString(v) + " is not a constant");
+        }
+        return (int) v;
+    }
+
+    /**
+     * Meets two encoded values.
+     */
+    public static long meet(long v1, long v2) {
+        if (v1 == v2 || v2 == UNDEF) {
+            return v1;
+        } else if (v1 == UNDEF) {
+            return v2;
+        } else {
+            // v1 and v2 are either different constants, or one of them is NAC
+            return NAC;
+        }
+    }
+
+    /**
+     * Evaluates binary operation on two encoded values.
+     *
+     * @return the encoded result of {@code v1 op v2}.
+     */
+    public static long evaluate(BinaryExp.Op op, long v1, long v2) {
+        if (isConstant(v2) && (int) v2 == 0 &&
+                (op == ArithmeticExp.Op.DIV || op == ArithmeticExp.Op.REM)) {
+            // division by zero yields no value
+            return UNDEF;
+        }
+        if (isConstant(v1) && isConstant(v2)) {
+            return makeConstant(compute(op, (int) v1, (int) v2));
+        } else if (v1 == NAC || v2 == NAC) {
+            return NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    private static int compute(BinaryExp.Op op, int i1, int i2) {
+        if (op instanceof ArithmeticExp.Op arith) {
+            return switch (arith) {
+                case ADD -> i1 + i2;
+                case SUB -> i1 - i2;
+                case MUL -> i1 * i2;
+                case DIV -> i1 / i2;
+                case REM -> i1 % i2;
+            };
+        } else if (op instanceof ConditionExp.Op cond) {
+            boolean result = switch (cond) {
+                case EQ -> i1 == i2;
+                case NE -> i1 != i2;
+                case LT -> i1 < i2;
+                case GT -> i1 > i2;
+                case LE -> i1 <= i2;
+                case GE -> i1 >= i2;
+            };
+            return result ? 1 : 0;
+        } else if (op instanceof ShiftExp.Op shift) {
+            return switch (shift) {
+                case SHL -> i1 << i2;
+                case SHR -> i1 >> i2;
+                case USHR -> i1 >>> i2;
+            };
+        } else if (op instanceof BitwiseExp.Op bitwise) {
+            return switch (bitwise) {
+                case OR -> i1 | i2;
+                case AND -> i1 & i2;
+                case XOR -> i1 ^ i2;
+            };
+        }
+        throw new AnalysisException("Unexpected operator: " + op);
+    }
+
+    /**
+     * Encodes given {@link Value}.
+     */
+    public static long fromValue(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    /**
+     * Decodes given encoded value to {@link Value}.
+     * Note that this allocates for constants that are not cached by
+     * {@link Value#makeConstant(int)}.
+     */
+    public static Value toValue(long v) {
+        if (isConstant(v)) {
+            return Value.makeConstant((int) v);
+        } else if (v == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.getUndef();
+        }
+    }
+
+    /**
+     * @return string representation of given encoded value,
+     * which is the same as the one of corresponding {@link Value}.
+     */
+    public static String toString(long v) {
+        if (isConstant(v)) {
+            return Integer.toString((int) v);
+        } else if (v == NAC) {
+            return "NAC";
+        } else {
+            return "UNDEF";
+        }
+    }
+}
@@ -0,0 +1,826 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse conditional constant propagation (SCCP) on the CFG of a method.
+ * <p>
+ * The int variables of the method are first renamed into SSA form
+ * internally: every definition of a variable creates a version, and
+ * phi versions are placed at the iterated dominance frontiers of the
+ * definitions. The lattice values are then propagated along the def-use
+ * chains of the versions instead of through dense facts, and only along
+ * the CFG edges which are executable according to the values of the
+ * conditions of if and switch statements. Thus, the cost is roughly
+ * linear to the number of def-use chains instead of the product of the
+ * numbers of statements and variables.
+ * <p>
+ * The result is a {@link DataflowResult} view which builds {@link CPFact}s
+ * on demand: the version of a variable at a statement is the one whose
+ * definition most closely dominates the statement, so the facts are built
+ * along the dominator tree, and cached once built. As infeasible branches are never
+ * followed, the values may be more precise than the ones of the dense
+ * analysis, and the facts of non-executable statements are empty.
+ *
+ * @see ConstantPropagation
+ */
+final class SparseConstantPropagation {
+
+    private final ConstantPropagation constProp;
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * CFG nodes indexed by {@link #id(Stmt)}.
+     */
+    private final Stmt[] nodes;
+
+    /**
+     * In-edges of each node, whose positions identify phi operands.
+     */
+    private final List<List<Edge<Stmt>>> inEdges;
+
+    /**
+     * Out-edges of each node, and the positions of the edges
+     * in the in-edges of their targets.
+     */
+    private final List<List<Edge<Stmt>>> outEdges;
+
+    private final int[][] outEdgePositions;
+
+    /**
+     * Number of each node in reverse postorder, or -1 if the node
+     * is unreachable from the entry.
+     */
+    private final int[] rpoNumbers;
+
+    /**
+     * Immediate dominator of each reachable node.
+     */
+    private final int[] idoms;
+
+    // ---------- versions ----------
+
+    private int versionCount = 0;
+
+    private Var[] versionVars = new Var[16];
+
+    private long[] values = new long[16];
+
+    /**
+     * Operands of each phi version, aligned with the in-edges of the node
+     * where the phi is placed, or null for other versions. The operand of
+     * an edge from unreachable nodes is -1.
+     */
+    private int[][] phiOperands = new int[16][];
+
+    private int[] phiNodes = new int[16];
+
+    /**
+     * Users of each version: the id of a node whose statement uses the
+     * version, or the bitwise complement of a phi version using it.
+     */
+    private IntList[] users = new IntList[16];
+
+    /**
+     * Version defined by the statement of each node, or -1.
+     */
+    private final int[] defVersions;
+
+    /**
+     * Phi versions placed at each node, or null if there is none.
+     */
+    private final IntList[] phis;
+
+    /**
+     * Int variables used by the statement of each node and their versions.
+     */
+    private final Var[][] useVars;
+
+    private final int[][] useVersions;
+
+    // ---------- propagation ----------
+
+    private final boolean[] executableNodes;
+
+    private final boolean[][] executableEdges;
+
+    private SparseConstantPropagation(ConstantPropagation constProp, CFG<Stmt> cfg) {
+        this.constProp = constProp;
+        this.cfg = cfg;
+        int size = cfg.getIR().getStmts().size() + 2;
+        nodes = new Stmt[size];
+        for (Stmt node : cfg) {
+            nodes[id(node)] = node;
+        }
+        inEdges = new ArrayList<>(size);
+        outEdges = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            inEdges.add(new ArrayList<>(cfg.getInEdgesOf(nodes[i])));
+            outEdges.add(new ArrayList<>());
+        }
+        List<IntList> positions = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            positions.add(new IntList());
+        }
+        for (int i = 0; i < size; ++i) {
+            List<Edge<Stmt>> edges = inEdges.get(i);
+            for (int j = 0; j < edges.size(); ++j) {
+                int source = id(edges.get(j).getSource());
+                outEdges.get(source).add(edges.get(j));
+                positions.get(source).add(j);
+            }
+        }
+        outEdgePositions = new int[size][];
+        for (int i = 0; i < size; ++i) {
+            outEdgePositions[i] = positions.get(i).toArray();
+        }
+        rpoNumbers = new int[size];
+        idoms = new int[size];
+        defVersions = new int[size];
+        phis = new IntList[size];
+        useVars = new Var[size][];
+        useVersions = new int[size][];
+        executableNodes = new boolean[size];
+        executableEdges = new boolean[size][];
+        for (int i = 0; i < size; ++i) {
+            executableEdges[i] = new boolean[inEdges.get(i).size()];
+        }
+    }
+
+    /**
+     * Runs sparse conditional constant propagation on given CFG.
+     *
+     * @param constProp the analysis which provides the facts of the result
+     * @return a view of the result as the one of the dense analysis.
+     */
+    static DataflowResult<Stmt, CPFact> solve(
+            ConstantPropagation constProp, CFG<Stmt> cfg) {
+        SparseConstantPropagation sccp = new SparseConstantPropagation(constProp, cfg);
+        int[] rpo = sccp.computeReversePostorder();
+        sccp.computeDominators(rpo);
+        sccp.buildSSA(rpo);
+        sccp.propagate();
+        return sccp.new Result();
+    }
+
+    /**
+     * @return the index of given CFG node in the arrays of this class.
+     * The statements are indexed by {@link Stmt#getIndex()}, followed
+     * by the entry and the exit, which are not statements of the IR.
+     */
+    private int id(Stmt node) {
+        if (cfg.isEntry(node)) {
+            return nodes.length - 2;
+        } else if (cfg.isExit(node)) {
+            return nodes.length - 1;
+        } else {
+            return node.getIndex();
+        }
+    }
+
+    private int entryId() {
+        return nodes.length - 2;
+    }
+
+    // ---------- dominators ----------
+
+    private int[] computeReversePostorder() {
+        Arrays.fill(rpoNumbers, -1);
+        int[] postorder = new int[nodes.length];
+        int count = 0;
+        // iterative DFS, where next[i] is the next out-edge of node i to visit
+        int[] next = new int[nodes.length];
+        int[] stack = new int[nodes.length];
+        boolean[] visited = new boolean[nodes.length];
+        int top = 0;
+        stack[0] = entryId();
+        visited[entryId()] = true;
+        while (top >= 0) {
+            int node = stack[top];
+            List<Edge<Stmt>> edges = outEdges.get(node);
+            if (next[node] < edges.size()) {
+                int succ = id(edges.get(next[node]++).getTarget());
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    stack[++top] = succ;
+                }
+            } else {
+                postorder[count++] = node;
+                --top;
+            }
+        }
+        int[] rpo = new int[count];
+        for (int i = 0; i < count; ++i) {
+            rpo[i] = postorder[count - 1 - i];
+            rpoNumbers[rpo[i]] = i;
+        }
+        return rpo;
+    }
+
+    /**
+     * Computes immediate dominators with the iterative algorithm in
+     * "A Simple, Fast Dominance Algorithm" (Cooper, Harvey and Kennedy).
+     */
+    private void computeDominators(int[] rpo) {
+        Arrays.fill(idoms, -1);
+        idoms[entryId()] = entryId();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < rpo.length; ++i) {
+                int node = rpo[i];
+                int idom = -1;
+                for (Edge<Stmt> edge : inEdges.get(node)) {
+                    int pred = id(edge.getSource());
+                    if (idoms[pred] != -1) {
+                        idom = idom == -1 ? pred : intersect(pred, idom);
+                    }
+                }
+                if (idoms[node] != idom) {
+                    idoms[node] = idom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int n1, int n2) {
+        while (n1 != n2) {
+            while (rpoNumbers[n1] > rpoNumbers[n2]) {
+                n1 = idoms[n1];
+            }
+            while (rpoNumbers[n2] > rpoNumbers[n1]) {
+                n2 = idoms[n2];
+            }
+        }
+        return n1;
+    }
+
+    // ---------- SSA construction ----------
+
+    private void buildSSA(int[] rpo) {
+        IR ir = cfg.getIR();
+        int varCount = ir.getVars().size();
+        // collect definition sites of int variables
+        IntList[] defSites = new IntList[varCount];
+        for (int node : rpo) {
+            Var def = getIntDef(nodes[node]);
+            if (def != null) {
+                int v = def.getIndex();
+                if (defSites[v] == null) {
+                    defSites[v] = new IntList();
+                }
+                defSites[v].add(node);
+            }
+        }
+        placePhis(rpo, defSites);
+        rename(rpo, ir, varCount);
+    }
+
+    /**
+     * Places phi versions of each variable at the iterated dominance
+     * frontiers of its definitions.
+     */
+    private void placePhis(int[] rpo, IntList[] defSites) {
+        IntList[] frontiers = computeDominanceFrontiers(rpo);
+        int[] hasPhi = new int[nodes.length];
+        int[] inWorkList = new int[nodes.length];
+        IntList workList = new IntList();
+        for (int v = 0; v < defSites.length; ++v) {
+            if (defSites[v] == null) {
+                continue;
+            }
+            Var var = cfg.getIR().getVar(v);
+            int mark = v + 1;
+            for (int i = 0; i < defSites[v].size(); ++i) {
+                int node = defSites[v].get(i);
+                inWorkList[node] = mark;
+                workList.add(node);
+            }
+            while (!workList.isEmpty()) {
+                IntList frontier = frontiers[workList.removeLast()];
+                for (int i = 0; frontier != null && i < frontier.size(); ++i) {
+                    int node = frontier.get(i);
+                    if (hasPhi[node] != mark) {
+                        hasPhi[node] = mark;
+                        if (phis[node] == null) {
+                            phis[node] = new IntList();
+                        }
+                        int[] operands = new int[inEdges.get(node).size()];
+                        Arrays.fill(operands, -1);
+                        phis[node].add(newVersion(var, PackedValue.UNDEF, node, operands));
+                        if (inWorkList[node] != mark) {
+                            inWorkList[node] = mark;
+                            workList.add(node);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private IntList[] computeDominanceFrontiers(int[] rpo) {
+        IntList[] frontiers = new IntList[nodes.length];
+        for (int node : rpo) {
+            List<Edge<Stmt>> edges = inEdges.get(node);
+            if (edges.size() < 2) {
+                continue;
+            }
+            for (Edge<Stmt> edge : edges) {
+                int runner = id(edge.getSource());
+                if (idoms[runner] == -1) {
+                    continue;
+                }
+                while (runner != idoms[node]) {
+                    IntList frontier = frontiers[runner];
+                    if (frontier == null) {
+                        frontier = frontiers[runner] = new IntList();
+                    }
+                    // the frontiers of all predecessors of a node are
+                    // extended consecutively, so checking the last
+                    // element suffices to avoid duplicates
+                    if (frontier.isEmpty() || frontier.getLast() != node) {
+                        frontier.add(node);
+                    }
+                    runner = idoms[runner];
+                }
+            }
+        }
+        return frontiers;
+    }
+
+    /**
+     * Renames the int variables by traversing the dominator tree,
+     * and connects the def-use chains of the versions.
+     */
+    private void rename(int[] rpo, IR ir, int varCount) {
+        // the versions reaching the entry: parameters are NAC,
+        // and the other variables are UNDEF
+        int[] current = new int[varCount];
+        for (Var var : ir.getVars()) {
+            current[var.getIndex()] = ConstantPropagation.canHoldInt(var)
+                    ? newVersion(var, PackedValue.UNDEF, entryId(), null) : -1;
+        }
+        for (Var param : ir.getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                values[current[param.getIndex()]] = PackedValue.NAC;
+            }
+        }
+        // children lists of the dominator tree
+        int[] firstChild = new int[nodes.length];
+        int[] nextSibling = new int[nodes.length];
+        Arrays.fill(firstChild, -1);
+        for (int i = rpo.length - 1; i > 0; --i) {
+            int node = rpo[i];
+            nextSibling[node] = firstChild[idoms[node]];
+            firstChild[idoms[node]] = node;
+        }
+        Arrays.fill(defVersions, -1);
+        // iterative DFS over the dominator tree; undo log records
+        // (variable, previous version) pairs to restore on leaving nodes
+        IntList undo = new IntList();
+        int[] undoMarks = new int[nodes.length];
+        int[] stack = new int[nodes.length];
+        int[] nextChild = new int[nodes.length];
+        int top = 0;
+        stack[0] = entryId();
+        enter(entryId(), current, undo, undoMarks);
+        nextChild[entryId()] = firstChild[entryId()];
+        while (top >= 0) {
+            int node = stack[top];
+            int child = nextChild[node];
+            if (child != -1) {
+                nextChild[node] = nextSibling[child];
+                enter(child, current, undo, undoMarks);
+                nextChild[child] = firstChild[child];
+                stack[++top] = child;
+            } else {
+                while (undo.size() > undoMarks[node]) {
+                    int version = undo.removeLast();
+                    current[undo.removeLast()] = version;
+                }
+                --top;
+            }
+        }
+    }
+
+    /**
+     * Renames the uses and the definition of given node, and fills
+     * the operands of the phis in its successors.
+     */
+    private void enter(int node, int[] current, IntList undo, int[] undoMarks) {
+        undoMarks[node] = undo.size();
+        if (phis[node] != null) {
+            for (int i = 0; i < phis[node].size(); ++i) {
+                int phi = phis[node].get(i);
+                define(versionVars[phi].getIndex(), phi, current, undo);
+            }
+        }
+        Stmt stmt = nodes[node];
+        List<Var> uses = new ArrayList<>(2);
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var && ConstantPropagation.canHoldInt(var)
+                    && !uses.contains(var)) {
+                uses.add(var);
+            }
+        }
+        if (!uses.isEmpty()) {
+            useVars[node] = uses.toArray(new Var[0]);
+            useVersions[node] = new int[uses.size()];
+            for (int i = 0; i < uses.size(); ++i) {
+                int version = current[uses.get(i).getIndex()];
+                useVersions[node][i] = version;
+                users[version].add(node);
+            }
+        }
+        Var def = getIntDef(stmt);
+        if (def != null) {
+            int version = newVersion(def, PackedValue.UNDEF, node, null);
+            defVersions[node] = version;
+            define(def.getIndex(), version, current, undo);
+        }
+        List<Edge<Stmt>> edges = outEdges.get(node);
+        for (int i = 0; i < edges.size(); ++i) {
+            int succ = id(edges.get(i).getTarget());
+            if (phis[succ] != null) {
+                int pos = outEdgePositions[node][i];
+                for (int j = 0; j < phis[succ].size(); ++j) {
+                    int phi = phis[succ].get(j);
+                    int operand = current[versionVars[phi].getIndex()];
+                    phiOperands[phi][pos] = operand;
+                    users[operand].add(~phi);
+                }
+            }
+        }
+    }
+
+    private static void define(int var, int version, int[] current, IntList undo) {
+        undo.add(var);
+        undo.add(current[var]);
+        current[var] = version;
+    }
+
+    private int newVersion(Var var, long value, int node, int[] operands) {
+        if (versionCount == values.length) {
+            int capacity = versionCount * 2;
+            versionVars = Arrays.copyOf(versionVars, capacity);
+            values = Arrays.copyOf(values, capacity);
+            phiOperands = Arrays.copyOf(phiOperands, capacity);
+            phiNodes = Arrays.copyOf(phiNodes, capacity);
+            users = Arrays.copyOf(users, capacity);
+        }
+        int version = versionCount++;
+        versionVars[version] = var;
+        values[version] = value;
+        phiOperands[version] = operands;
+        phiNodes[version] = node;
+        users[version] = new IntList();
+        return version;
+    }
+
+    /**
+     * @return the int variable defined by given statement, or null.
+     */
+    private static Var getIntDef(Stmt stmt) {
+        return stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var var &&
+                ConstantPropagation.canHoldInt(var) ? var : null;
+    }
+
+    // ---------- propagation ----------
+
+    /**
+     * Propagates the values along the executable CFG edges and the
+     * def-use chains until both work lists are empty.
+     */
+    private void propagate() {
+        // executable edges, encoded as (target node, in-edge position) pairs
+        IntList flowWorkList = new IntList();
+        IntList ssaWorkList = new IntList();
+        executableNodes[entryId()] = true;
+        visit(entryId(), flowWorkList, ssaWorkList);
+        while (!flowWorkList.isEmpty() || !ssaWorkList.isEmpty()) {
+            while (!flowWorkList.isEmpty()) {
+                int pos = flowWorkList.removeLast();
+                int node = flowWorkList.removeLast();
+                if (executableEdges[node][pos]) {
+                    continue;
+                }
+                executableEdges[node][pos] = true;
+                if (phis[node] != null) {
+                    for (int i = 0; i < phis[node].size(); ++i) {
+                        evaluatePhi(phis[node].get(i), ssaWorkList);
+                    }
+                }
+                if (!executableNodes[node]) {
+                    executableNodes[node] = true;
+                    visit(node, flowWorkList, ssaWorkList);
+                }
+            }
+            while (!ssaWorkList.isEmpty()) {
+                IntList versionUsers = users[ssaWorkList.removeLast()];
+                for (int i = 0; i < versionUsers.size(); ++i) {
+                    int user = versionUsers.get(i);
+                    if (user < 0) {
+                        if (executableNodes[phiNodes[~user]]) {
+                            evaluatePhi(~user, ssaWorkList);
+                        }
+                    } else if (executableNodes[user]) {
+                        visit(user, flowWorkList, ssaWorkList);
+                    }
+                }
+            }
+        }
+    }
+
+    private void evaluatePhi(int phi, IntList ssaWorkList) {
+        int[] operands = phiOperands[phi];
+        boolean[] executable = executableEdges[phiNodes[phi]];
+        long value = PackedValue.UNDEF;
+        for (int i = 0; i < operands.length; ++i) {
+            if (executable[i]) {
+                value = PackedValue.meet(value, values[operands[i]]);
+            }
+        }
+        lower(phi, value, ssaWorkList);
+    }
+
+    /**
+     * Evaluates the statement of given executable node, and marks
+     * its out-edges which may be taken as executable.
+     */
+    private void visit(int node, IntList flowWorkList, IntList ssaWorkList) {
+        Stmt stmt = nodes[node];
+        int def = defVersions[node];
+        if (def != -1) {
+            lower(def, evaluate(((DefinitionStmt<?, ?>) stmt).getRValue(), node),
+                    ssaWorkList);
+        }
+        long cond = PackedValue.NAC;
+        if (stmt instanceof If ifStmt) {
+            cond = evaluate(ifStmt.getCondition(), node);
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            cond = valueOf(switchStmt.getVar(), node);
+        }
+        List<Edge<Stmt>> edges = outEdges.get(node);
+        for (int i = 0; i < edges.size(); ++i) {
+            Edge<Stmt> edge = edges.get(i);
+            if (isFeasible(stmt, edge, cond)) {
+                flowWorkList.add(id(edge.getTarget()));
+                flowWorkList.add(outEdgePositions[node][i]);
+            }
+        }
+    }
+
+    /**
+     * @param cond the value of the condition of given statement if it is
+     *             an if statement, or the value of the switch variable
+     *             if it is a switch statement
+     * @return true if given edge may be taken according to the condition.
+     */
+    private static boolean isFeasible(Stmt stmt, Edge<Stmt> edge, long cond) {
+        if (PackedValue.isNAC(cond)) {
+            return true;
+        }
+        Edge.Kind kind = edge.getKind();
+        if (stmt instanceof If) {
+            if (kind == Edge.Kind.IF_TRUE || kind == Edge.Kind.IF_FALSE) {
+                // no branch is taken before the condition is known
+                return PackedValue.isConstant(cond) && kind ==
+                        (PackedValue.getConstant(cond) == 1 ?
+                                Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            if (edge.isSwitchCase()) {
+                return PackedValue.isConstant(cond) &&
+                        edge.getCaseValue() == PackedValue.getConstant(cond);
+            } else if (kind == Edge.Kind.SWITCH_DEFAULT) {
+                return PackedValue.isConstant(cond) && !switchStmt
+                        .getCaseValues().contains(PackedValue.getConstant(cond));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lowers the value of given version to its meet with given value.
+     */
+    private void lower(int version, long value, IntList ssaWorkList) {
+        long old = values[version];
+        long lowered = PackedValue.meet(old, value);
+        if (lowered != old) {
+            values[version] = lowered;
+            ssaWorkList.add(version);
+        }
+    }
+
+    /**
+     * Evaluates given expression at given node, in the same way as
+     * {@link ConstantPropagation#evaluatePacked(Exp, CPFact)}.
+     */
+    private long evaluate(Exp exp, int node) {
+        if (exp instanceof IntLiteral literal) {
+            return PackedValue.makeConstant(literal.getValue());
+        } else if (exp instanceof Var var) {
+            return valueOf(var, node);
+        } else if (exp instanceof BinaryExp binary) {
+            return PackedValue.evaluate(binary.getOperator(),
+                    valueOf(binary.getOperand1(), node),
+                    valueOf(binary.getOperand2(), node));
+        } else {
+            return PackedValue.NAC;
+        }
+    }
+
+    private long valueOf(Var var, int node) {
+        Var[] vars = useVars[node];
+        if (vars != null) {
+            for (int i = 0; i < vars.length; ++i) {
+                if (vars[i] == var) {
+                    return values[useVersions[node][i]];
+                }
+            }
+        }
+        // var cannot hold int value
+        return PackedValue.NAC;
+    }
+
+    /**
+     * View of the result of sparse constant propagation, which builds
+     * the facts on the first query and caches them in the arrays of
+     * {@link StmtDataflowResult}. The IN fact of a node is the one of its
+     * immediate dominator, updated by the definition of the dominator and
+     * the phis at the node, so the facts are built top-down from the
+     * closest dominator whose fact is cached, and each query copies
+     * at most one fact per uncached dominator. The result cannot be
+     * modified, and the returned facts must not be modified either.
+     */
+    private class Result extends StmtDataflowResult<CPFact> {
+
+        private Result() {
+            super(cfg);
+        }
+
+        @Override
+        public CPFact getInFact(Stmt node) {
+            CPFact fact = super.getInFact(node);
+            return fact != null ? fact : buildInFact(id(node));
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt node) {
+            CPFact fact = super.getOutFact(node);
+            if (fact == null) {
+                fact = getInFact(node).copy();
+                int id = id(node);
+                if (executableNodes[id]) {
+                    addVersion(fact, defVersions[id]);
+                }
+                super.setOutFact(node, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public void setInFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setOutFact(Stmt node, CPFact fact) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Builds and caches the IN facts of given node and its dominators
+         * whose facts are not cached yet.
+         */
+        private CPFact buildInFact(int node) {
+            if (!executableNodes[node]) {
+                CPFact fact = constProp.newInitialFact(cfg);
+                super.setInFact(nodes[node], fact);
+                return fact;
+            }
+            // collect the dominators whose facts are not cached;
+            // the dominators of executable nodes are also executable
+            IntList path = new IntList();
+            int n = node;
+            CPFact fact;
+            while ((fact = super.getInFact(nodes[n])) == null) {
+                path.add(n);
+                if (n == entryId()) {
+                    break;
+                }
+                n = idoms[n];
+            }
+            while (!path.isEmpty()) {
+                n = path.removeLast();
+                if (fact == null) { // n is the entry
+                    fact = constProp.newInitialFact(cfg);
+                    for (Var param : cfg.getIR().getParams()) {
+                        if (ConstantPropagation.canHoldInt(param)) {
+                            fact.updatePacked(param, PackedValue.NAC);
+                        }
+                    }
+                } else {
+                    fact = fact.copy();
+                    addVersion(fact, defVersions[idoms[n]]);
+                }
+                if (phis[n] != null) {
+                    for (int i = 0; i < phis[n].size(); ++i) {
+                        addVersion(fact, phis[n].get(i));
+                    }
+                }
+                super.setInFact(nodes[n], fact);
+            }
+            return fact;
+        }
+
+        private void addVersion(CPFact fact, int version) {
+            if (version != -1) {
+                fact.updatePacked(versionVars[version], values[version]);
+            }
+        }
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+
+        private int[] elements = new int[4];
+
+        private int size = 0;
+
+        void add(int e) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = e;
+        }
+
+        int get(int i) {
+            return elements[i];
+        }
+
+        int getLast() {
+            return elements[size - 1];
+        }
+
+        int removeLast() {
+            return elements[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+}
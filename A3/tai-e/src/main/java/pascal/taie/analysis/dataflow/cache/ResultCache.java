@@ -0,0 +1,536 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.Analysis;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRPrinter;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.ExceptionEntry;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of the results of method analyses, which allows reruns
+ * of the analyses on unchanged methods, e.g., the methods of libraries,
+ * to skip the computation.
+ * <p>
+ * A result is keyed by a hash of the IR of the method together with the
+ * ID and the options of the analysis (except the options of the cache),
+ * and the keys of the results of other analyses which it depends on, and is stored in the binary form
+ * produced by a {@link ResultCodec}. The cache is a memory-mapped file of
+ * bounded size, which holds a log of entries. When the file is full,
+ * the least-recently-used entries are evicted and the remaining entries
+ * are compacted to the beginning of the file. The recency of the entries
+ * is not persisted, i.e., after the cache is reopened, the entries are
+ * ordered by when they were written.
+ * <p>
+ * The cache is enabled for an analysis by option {@code cache}, which
+ * is the path of the cache file, and option {@code cache-size}, which
+ * is the maximum size of the file in MB (64 by default). The analyses
+ * using the same file share one cache in a JVM, while the file is locked
+ * against other processes. This class is thread-safe.
+ */
+public final class ResultCache {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    private static final int DEFAULT_SIZE_MB = 64;
+
+    private static final int MAGIC = 0x54414943;
+
+    /**
+     * Version of the file format and the encodings of the results,
+     * which should be changed when any of them is changed.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The header consists of magic number, version, and end of the log.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    private static final int END_OFFSET = 8;
+
+    /**
+     * An entry consists of the key (two longs), the length and
+     * the CRC-32 checksum of the encoded result, and the encoded result.
+     */
+    private static final int ENTRY_HEADER_SIZE = 24;
+
+    private static final int LENGTH_OFFSET = 16;
+
+    private static final int CHECKSUM_OFFSET = 20;
+
+    /**
+     * Prefix of the keys of {@link KeyedResult}s in the results of IRs.
+     */
+    private static final String KEY_PREFIX = "cache-key:";
+
+    /**
+     * Options of the cache, which do not affect the results,
+     * thus they are not covered by the keys.
+     */
+    private static final List<String> CACHE_OPTIONS = List.of("cache", "cache-size");
+
+    private static final Map<Path, ResultCache> caches = Maps.newConcurrentMap();
+
+    private final Path file;
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Keeps the file locked while this cache is in use.
+     */
+    private final FileLock lock;
+
+    /**
+     * Maps keys to the offsets of their entries in access order,
+     * i.e., from the least-recently-used entry to the most recently used one.
+     */
+    private final LinkedHashMap<Key, Integer> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Offset after the last entry in the file.
+     */
+    private int end;
+
+    /**
+     * Total size of the live entries.
+     */
+    private int liveSize;
+
+    /**
+     * Numbers of the results returned from this cache, and the ones
+     * computed as they are absent.
+     */
+    private int hits;
+
+    private int misses;
+
+    private ResultCache(Path file, int capacity) throws IOException {
+        this.file = file;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = channel.tryLock();
+        if (lock == null) {
+            channel.close();
+            throw new IOException("cache file is in use by another process");
+        }
+        if (channel.size() > capacity) {
+            channel.truncate(capacity);
+        }
+        // the mapping remains valid after the channel is closed,
+        // but the lock does not, thus the channel is kept open
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        load();
+    }
+
+    /**
+     * @return the cache configured by given options, or null if the cache
+     * is not enabled or the cache file cannot be opened.
+     * @throws ConfigException if the size of the cache is invalid
+     */
+    @Nullable
+    public static ResultCache of(AnalysisOptions options) {
+        String path = options.getString("cache");
+        if (path == null) {
+            return null;
+        }
+        int sizeMB = options.get("cache-size") != null
+                ? options.getInt("cache-size") : DEFAULT_SIZE_MB;
+        if (sizeMB <= 0 || sizeMB >= 2048) {
+            throw new ConfigException(
+                    "Invalid cache-size: " + sizeMB + " (expected 1-2047 MB)");
+        }
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        synchronized (caches) {
+            ResultCache cache = caches.get(file);
+            if (cache == null) {
+                try {
+                    cache = new ResultCache(file, sizeMB << 20);
+                } catch (IOException e) {
+                    logger.warn("Failed to open result cache {}, caching is disabled: {}",
+                            file, e.getMessage());
+                    return null;
+                }
+                caches.put(file, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Closes this cache and releases the cache file, which is reopened
+     * by the next call of {@link #of} with the same file.
+     * This cache must not be used after it is closed.
+     */
+    public void close() throws IOException {
+        synchronized (caches) {
+            caches.remove(file, this);
+        }
+        synchronized (this) {
+            buffer.force();
+            logger.info("Closed result cache {} ({} hits, {} misses)",
+                    file, hits, misses);
+            lock.channel().close();
+        }
+    }
+
+    /**
+     * Returns the result of given analysis for given IR from this cache
+     * if present, otherwise computes the result by given supplier and
+     * stores it in this cache. The result must not depend on the results
+     * of other analyses stored in the IR.
+     *
+     * @param analysis the analysis whose result is requested, whose ID and
+     *                 options are a part of the key of the result
+     * @param ir       the IR of the analyzed method
+     * @param codec    the codec of the results of the analysis
+     * @param computer computes the result if it is absent in this cache
+     */
+    public <R> R computeIfAbsent(Analysis analysis, IR ir,
+                                 ResultCodec<R> codec, Supplier<R> computer) {
+        return computeIfAbsent(analysis, List.of(), ir, codec, computer);
+    }
+
+    /**
+     * Returns the result of given analysis for given IR from this cache
+     * if present, otherwise computes the result by given supplier and
+     * stores it in this cache.
+     * <p>
+     * The result may depend on the results of given analyses stored in
+     * the IR, which in turn depend on the options of those analyses.
+     * Thus, the key of the result covers the keys of those results, which
+     * are known only if those results are returned by a result cache.
+     * If the result of a dependency is present in the IR but its key is
+     * unknown, the result is computed without caching.
+     *
+     * @param analysis     the analysis whose result is requested, whose ID
+     *                     and options are a part of the key of the result
+     * @param dependencies IDs of the analyses whose results in the IR
+     *                     may be used to compute the result
+     * @param ir           the IR of the analyzed method
+     * @param codec        the codec of the results of the analysis
+     * @param computer     computes the result if it is absent in this cache
+     */
+    public <R> R computeIfAbsent(Analysis analysis, List<String> dependencies,
+                                 IR ir, ResultCodec<R> codec, Supplier<R> computer) {
+        Key key = Key.of(analysis, dependencies, ir);
+        if (key == null) {
+            return computer.get();
+        }
+        byte[] data = get(key);
+        if (data != null) {
+            try {
+                R result = codec.decode(ir, new DataInputStream(
+                        new ByteArrayInputStream(data)));
+                recordKey(ir, analysis.getId(), result, key);
+                recordLookup(true);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to decode cached result of {} for {}: {}",
+                        analysis.getId(), ir.getMethod(), e);
+            }
+        }
+        recordLookup(false);
+        R result = computer.get();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            codec.encode(result, ir, new DataOutputStream(bytes));
+            put(key, bytes.toByteArray());
+        } catch (IOException e) {
+            logger.warn("Failed to cache result of {} for {}: {}",
+                    analysis.getId(), ir.getMethod(), e);
+        }
+        recordKey(ir, analysis.getId(), result, key);
+        return result;
+    }
+
+    private synchronized void recordLookup(boolean hit) {
+        if (hit) {
+            ++hits;
+        } else {
+            ++misses;
+        }
+    }
+
+    /**
+     * @return the number of the results returned from this cache.
+     */
+    synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of the results computed as they are absent.
+     */
+    synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Records the key of a result of given analysis in given IR,
+     * so that the results depending on it can be keyed.
+     */
+    private static void recordKey(IR ir, String id, Object result, Key key) {
+        ir.storeResult(KEY_PREFIX + id, new KeyedResult(result, key));
+    }
+
+    /**
+     * @return the data of given key, or null if the key is absent.
+     */
+    @Nullable
+    private synchronized byte[] get(Key key) {
+        Integer offset = entries.get(key);
+        if (offset == null) {
+            return null;
+        }
+        byte[] data = new byte[buffer.getInt(offset + LENGTH_OFFSET)];
+        buffer.get(offset + ENTRY_HEADER_SIZE, data);
+        if (checksum(data) != buffer.getInt(offset + CHECKSUM_OFFSET)) {
+            logger.warn("Corrupted entry in result cache {}, discarded", file);
+            entries.remove(key);
+            liveSize -= sizeOf(offset);
+            return null;
+        }
+        return data;
+    }
+
+    private synchronized void put(Key key, byte[] data) {
+        int size = ENTRY_HEADER_SIZE + data.length;
+        int available = buffer.capacity() - HEADER_SIZE;
+        if (size > available) {
+            return;
+        }
+        Integer oldOffset = entries.remove(key);
+        if (oldOffset != null) {
+            // the old entry becomes garbage, and is overridden by
+            // the new entry when the cache is reopened
+            liveSize -= sizeOf(oldOffset);
+        }
+        if (end + size > buffer.capacity()) {
+            Iterator<Map.Entry<Key, Integer>> iter = entries.entrySet().iterator();
+            while (liveSize + size > available) {
+                liveSize -= sizeOf(iter.next().getValue());
+                iter.remove();
+            }
+            compact();
+        }
+        buffer.putLong(end, key.high());
+        buffer.putLong(end + 8, key.low());
+        buffer.putInt(end + LENGTH_OFFSET, data.length);
+        buffer.putInt(end + CHECKSUM_OFFSET, checksum(data));
+        buffer.put(end + ENTRY_HEADER_SIZE, data);
+        entries.put(key, end);
+        end += size;
+        liveSize += size;
+        // the end is updated after the entry is completely written
+        buffer.putInt(END_OFFSET, end);
+    }
+
+    private int sizeOf(int offset) {
+        return ENTRY_HEADER_SIZE + buffer.getInt(offset + LENGTH_OFFSET);
+    }
+
+    private static int checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Moves the live entries to the beginning of the log,
+     * preserving their order in the file.
+     */
+    private void compact() {
+        // if the compaction is interrupted, the cache becomes empty
+        // instead of corrupted when it is reopened
+        buffer.putInt(END_OFFSET, HEADER_SIZE);
+        List<Map.Entry<Key, Integer>> live = new ArrayList<>(entries.entrySet());
+        live.sort(Map.Entry.comparingByValue());
+        int pos = HEADER_SIZE;
+        byte[] chunk = new byte[8192];
+        for (Map.Entry<Key, Integer> entry : live) {
+            int offset = entry.getValue();
+            int size = sizeOf(offset);
+            if (offset != pos) {
+                // entries only move towards the beginning,
+                // thus copying forward is safe
+                for (int i = 0; i < size; i += chunk.length) {
+                    int length = Math.min(chunk.length, size - i);
+                    buffer.get(offset + i, chunk, 0, length);
+                    buffer.put(pos + i, chunk, 0, length);
+                }
+                // updating the value does not change the access order
+                entry.setValue(pos);
+            }
+            pos += size;
+        }
+        end = pos;
+        buffer.putInt(END_OFFSET, end);
+    }
+
+    /**
+     * Loads the entries from the file, or initializes the file
+     * if it is new or its format is unknown.
+     */
+    private void load() {
+        end = HEADER_SIZE;
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            int fileEnd = buffer.getInt(END_OFFSET);
+            if (fileEnd > buffer.capacity()) {
+                fileEnd = HEADER_SIZE;
+            }
+            while (end + ENTRY_HEADER_SIZE <= fileEnd) {
+                int length = buffer.getInt(end + LENGTH_OFFSET);
+                if (length < 0 || length > fileEnd - end - ENTRY_HEADER_SIZE) {
+                    break;
+                }
+                Key key = new Key(buffer.getLong(end), buffer.getLong(end + 8));
+                Integer oldOffset = entries.put(key, end);
+                if (oldOffset != null) {
+                    liveSize -= sizeOf(oldOffset);
+                }
+                liveSize += ENTRY_HEADER_SIZE + length;
+                end += ENTRY_HEADER_SIZE + length;
+            }
+            logger.info("Loaded {} cached results from {}", entries.size(), file);
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+        buffer.putInt(END_OFFSET, end);
+    }
+
+    /**
+     * A result returned by a result cache and its key.
+     */
+    private record KeyedResult(Object result, Key key) {
+    }
+
+    /**
+     * 128-bit key of a cached result.
+     */
+    private record Key(long high, long low) {
+
+        /**
+         * Computes the key of the result of given analysis for given IR,
+         * which is stable across runs. The hash of the IR covers the
+         * signature of the method, the variables, the statements (including
+         * their line numbers) and the exception entries, thus any change
+         * of the method which may affect the results changes the key.
+         * The keys of the results of the dependencies are also covered.
+         *
+         * @return the key, or null if the result of a dependency is
+         * present in the IR but its key is unknown.
+         */
+        @Nullable
+        private static Key of(Analysis analysis, List<String> dependencies, IR ir) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append(VERSION).append('\n')
+                    .append(analysis.getId())
+                    .append(toKeyString(analysis.getOptions())).append('\n');
+            for (String dependency : dependencies) {
+                Object result = ir.getResult(dependency);
+                sb.append(dependency).append(':');
+                if (result != null) {
+                    KeyedResult keyed = ir.getResult(KEY_PREFIX + dependency);
+                    if (keyed == null || keyed.result() != result) {
+                        return null;
+                    }
+                    sb.append(keyed.key().high()).append(keyed.key().low());
+                }
+                sb.append('\n');
+            }
+            sb.append(ir.getMethod().getSignature()).append('\n');
+            for (Var var : ir.getVars()) {
+                sb.append(var.getName()).append(':').append(var.getType()).append(';');
+            }
+            sb.append('\n');
+            for (Stmt stmt : ir.getStmts()) {
+                sb.append(IRPrinter.toString(stmt)).append('\n');
+            }
+            for (ExceptionEntry entry : ir.getExceptionEntries()) {
+                sb.append(entry.start().getIndex()).append('-')
+                        .append(entry.end().getIndex()).append(':')
+                        .append(entry.handler().getIndex()).append(':')
+                        .append(entry.catchType()).append('\n');
+            }
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(
+                    sb.toString().getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        }
+
+        /**
+         * @return the string of given options except the options of
+         * the cache. {@link AnalysisOptions} does not expose the names of
+         * its options, thus the cache options are removed from its string.
+         */
+        private static String toKeyString(AnalysisOptions options) {
+            String s = options.toString();
+            for (String name : CACHE_OPTIONS) {
+                Object value = options.get(name);
+                if (value != null) {
+                    s = s.replace(name + "=" + value, "");
+                }
+            }
+            return s;
+        }
+    }
+}
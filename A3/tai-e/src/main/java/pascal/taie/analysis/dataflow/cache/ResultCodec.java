@@ -0,0 +1,227 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.cache;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Converts the results of an analysis for a method from/to the binary form
+ * stored in {@link ResultCache}. Statements and variables are encoded by
+ * their indexes in the IR, thus a result can be decoded only for an IR
+ * which is identical to the one from which the result was encoded.
+ *
+ * @param <R> type of analysis results
+ */
+public interface ResultCodec<R> {
+
+    void encode(R result, IR ir, DataOutput out) throws IOException;
+
+    R decode(IR ir, DataInput in) throws IOException;
+
+    /**
+     * Converts data-flow facts from/to binary form.
+     *
+     * @param <Fact> type of data-flow facts
+     */
+    interface FactCodec<Fact> {
+
+        void encode(Fact fact, DataOutput out) throws IOException;
+
+        /**
+         * @param cfg the CFG which the decoded fact belongs to
+         */
+        Fact decode(CFG<Stmt> cfg, DataInput in) throws IOException;
+
+        /**
+         * @return a copy of given decoded fact.
+         */
+        Fact copy(Fact fact);
+    }
+
+    /**
+     * @return a codec for {@link DataflowResult}s on CFGs of {@link Stmt}s
+     * which uses given codec for the facts. The IN and OUT facts of all
+     * nodes are encoded in order of node indexes, and a fact which equals
+     * the previous one is encoded as a reference to the previous one,
+     * which is decoded as a copy of the previous one. Thus, the facts of
+     * the decoded result are distinct objects, which can be updated
+     * independently, e.g., by {@link Solver#solveIncrementally}.
+     */
+    static <Fact> ResultCodec<DataflowResult<Stmt, Fact>> ofDataflowResult(
+            FactCodec<Fact> factCodec) {
+        return new ResultCodec<>() {
+
+            private static final byte NULL = 0;
+
+            private static final byte FACT = 1;
+
+            private static final byte PREVIOUS = 2;
+
+            @Override
+            public void encode(DataflowResult<Stmt, Fact> result, IR ir,
+                               DataOutput out) throws IOException {
+                CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+                Fact previous = null;
+                for (Stmt node : getNodes(cfg)) {
+                    previous = encodeFact(result.getInFact(node), previous, out);
+                    previous = encodeFact(result.getOutFact(node), previous, out);
+                }
+            }
+
+            private Fact encodeFact(Fact fact, Fact previous,
+                                    DataOutput out) throws IOException {
+                if (fact == null) {
+                    out.writeByte(NULL);
+                    return previous;
+                } else if (fact.equals(previous)) {
+                    out.writeByte(PREVIOUS);
+                } else {
+                    out.writeByte(FACT);
+                    factCodec.encode(fact, out);
+                }
+                return fact;
+            }
+
+            @Override
+            public DataflowResult<Stmt, Fact> decode(
+                    IR ir, DataInput in) throws IOException {
+                CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+                DataflowResult<Stmt, Fact> result = new StmtDataflowResult<>(cfg);
+                Fact previous = null;
+                for (Stmt node : getNodes(cfg)) {
+                    Fact fact = decodeFact(cfg, previous, in);
+                    result.setInFact(node, fact);
+                    previous = fact != null ? fact : previous;
+                    fact = decodeFact(cfg, previous, in);
+                    result.setOutFact(node, fact);
+                    previous = fact != null ? fact : previous;
+                }
+                return result;
+            }
+
+            private Fact decodeFact(CFG<Stmt> cfg, Fact previous,
+                                    DataInput in) throws IOException {
+                byte tag = in.readByte();
+                return switch (tag) {
+                    case NULL -> null;
+                    case FACT -> factCodec.decode(cfg, in);
+                    case PREVIOUS -> {
+                        if (previous == null) {
+                            throw new IOException("No previous fact");
+                        }
+                        yield factCodec.copy(previous);
+                    }
+                    default -> throw new IOException("Invalid tag: " + tag);
+                };
+            }
+
+            /**
+             * @return the statements in order of indexes,
+             * followed by the entry and the exit of given CFG.
+             */
+            private List<Stmt> getNodes(CFG<Stmt> cfg) {
+                List<Stmt> nodes = new ArrayList<>(cfg.getIR().getStmts());
+                nodes.add(cfg.getEntry());
+                nodes.add(cfg.getExit());
+                return nodes;
+            }
+        };
+    }
+
+    /**
+     * @return a codec for sets of statements, e.g., the results of
+     * dead code detection. The decoded sets are sorted by statement indexes.
+     */
+    static ResultCodec<Set<Stmt>> ofStmtSet() {
+        return new ResultCodec<>() {
+
+            @Override
+            public void encode(Set<Stmt> result, IR ir,
+                               DataOutput out) throws IOException {
+                writeVarInt(out, result.size());
+                int[] indexes = result.stream()
+                        .mapToInt(Stmt::getIndex)
+                        .sorted()
+                        .toArray();
+                int last = 0;
+                for (int index : indexes) {
+                    writeVarInt(out, index - last);
+                    last = index;
+                }
+            }
+
+            @Override
+            public Set<Stmt> decode(IR ir, DataInput in) throws IOException {
+                Set<Stmt> result = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+                int size = readVarInt(in);
+                int index = 0;
+                for (int i = 0; i < size; ++i) {
+                    index += readVarInt(in);
+                    result.add(ir.getStmt(index));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Writes a non-negative int in 1-5 bytes, 7 bits per byte.
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by {@link #writeVarInt(DataOutput, int)}.
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+}
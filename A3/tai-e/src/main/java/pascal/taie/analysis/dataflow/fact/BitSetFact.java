@@ -0,0 +1,378 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Streams;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts as bit vectors.
+ * <p>
+ * Elements are identified by the dense indexes given by an {@link Indexer},
+ * and the set is stored as an array of 64-bit words, so that union,
+ * intersection, comparison and copy are performed word by word without
+ * hashing any element. This is suitable for the facts whose universe
+ * is small and known in advance, e.g., the variables of a method.
+ * <p>
+ * The bulk operations are only efficient between facts with equal
+ * indexers; for other {@link SetFact}s they fall back to
+ * element-wise operations. The elements are not stored in
+ * {@link SetFact#set}, so all methods accessing it are overridden.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    private final Indexer<E> indexer;
+
+    /**
+     * Words holding the bits of this fact. Words beyond the array
+     * are treated as zeros, so the array grows only when needed.
+     */
+    private long[] words;
+
+    /**
+     * Constructs an empty fact for the elements given by indexer.
+     *
+     * @param indexer  indexer of the elements
+     * @param capacity expected number of elements in the universe,
+     *                 i.e., one plus the largest index
+     */
+    public BitSetFact(Indexer<E> indexer, int capacity) {
+        super(Collections.emptySet(), 0);
+        this.indexer = indexer;
+        this.words = capacity > 0 ? new long[wordIndex(capacity - 1) + 1] : EMPTY_WORDS;
+    }
+
+    public BitSetFact(Indexer<E> indexer) {
+        this(indexer, 0);
+    }
+
+    private BitSetFact(BitSetFact<E> other) {
+        super(Collections.emptySet(), 0);
+        this.indexer = other.indexer;
+        this.words = other.words.clone();
+    }
+
+    /**
+     * @return the indexer of the elements of this fact.
+     */
+    public Indexer<E> getIndexer() {
+        return indexer;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            int newLength = Math.max(2 * words.length, wordsRequired);
+            words = Arrays.copyOf(words, newLength);
+        }
+    }
+
+    private boolean isCompatible(SetFact<E> other) {
+        return other instanceof BitSetFact<E> that && that.indexer.equals(indexer);
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = indexer.getIndex(e);
+        int wi = wordIndex(index);
+        return wi < words.length && (words[wi] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexer.getIndex(e);
+        int wi = wordIndex(index);
+        ensureCapacity(wi + 1);
+        long old = words[wi];
+        words[wi] = old | (1L << index);
+        return recordChange(words[wi] != old);
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = indexer.getIndex(e);
+        int wi = wordIndex(index);
+        if (wi >= words.length) {
+            return false;
+        }
+        long old = words[wi];
+        words[wi] = old & ~(1L << index);
+        return recordChange(words[wi] != old);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int wi = 0; wi < words.length; ++wi) {
+            long word = words[wi];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (filter.test(indexer.getObject(wi * BITS_PER_WORD + bit))) {
+                    words[wi] &= ~(1L << bit);
+                    changed = true;
+                }
+            }
+        }
+        return recordChange(changed);
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (!isCompatible(other)) {
+            int oldStamp = getStamp();
+            other.forEach(this::add);
+            return getStamp() != oldStamp;
+        }
+        long[] otherWords = ((BitSetFact<E>) other).words;
+        int n = lastNonZeroWord(otherWords) + 1;
+        ensureCapacity(n);
+        boolean changed = false;
+        for (int wi = 0; wi < n; ++wi) {
+            long old = words[wi];
+            long word = old | otherWords[wi];
+            if (word != old) {
+                words[wi] = word;
+                changed = true;
+            }
+        }
+        return recordChange(changed);
+    }
+
+    @Override
+    public BitSetFact<E> unionWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.union(other);
+        return result;
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (!isCompatible(other)) {
+            return removeIf(e -> !other.contains(e));
+        }
+        long[] otherWords = ((BitSetFact<E>) other).words;
+        boolean changed = false;
+        for (int wi = 0; wi < words.length; ++wi) {
+            long old = words[wi];
+            long word = wi < otherWords.length ? old & otherWords[wi] : 0L;
+            if (word != old) {
+                words[wi] = word;
+                changed = true;
+            }
+        }
+        return recordChange(changed);
+    }
+
+    @Override
+    public BitSetFact<E> intersectWith(SetFact<E> other) {
+        BitSetFact<E> result = copy();
+        result.intersect(other);
+        return result;
+    }
+
+    /**
+     * Records a modification of this fact if changed is true.
+     * The hash code maintained by {@link SetFact} is unused,
+     * as {@link #equals(Object)} and {@link #hashCode()} are overridden.
+     *
+     * @return changed
+     */
+    private boolean recordChange(boolean changed) {
+        if (changed) {
+            modified(0);
+        }
+        return changed;
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (!isCompatible(other)) {
+            clear();
+            union(other);
+            return;
+        }
+        long[] otherWords = ((BitSetFact<E>) other).words;
+        if (words.length < otherWords.length) {
+            words = otherWords.clone();
+        } else {
+            System.arraycopy(otherWords, 0, words, 0, otherWords.length);
+            Arrays.fill(words, otherWords.length, words.length, 0L);
+        }
+        modified(0);
+    }
+
+    /**
+     * Sets the content of this fact to the union of gen and
+     * {@code (fact - kill)}, which is the effect of the transfer functions
+     * of gen/kill analyses. The gen and kill sets are given as the indexes
+     * of their elements, as they usually contain only a few elements.
+     * The operation is performed word by word without allocation.
+     *
+     * @param gen  indexes of the elements of gen set, in ascending order
+     * @param kill indexes of the elements of kill set, in ascending order
+     * @return true if this fact changed as a result of the call, otherwise false.
+     * @throws IllegalArgumentException if the indexer of given fact
+     *                                  is not equal to the one of this fact
+     */
+    public boolean setToGenKill(BitSetFact<E> fact, int[] gen, int[] kill) {
+        if (!isCompatible(fact)) {
+            throw new IllegalArgumentException(
+                    "Cannot operate on bit sets of different indexers");
+        }
+        long[] src = fact.words;
+        int genWords = gen.length == 0 ? 0 : wordIndex(gen[gen.length - 1]) + 1;
+        ensureCapacity(Math.max(src.length, genWords));
+        boolean changed = false;
+        int g = 0, k = 0;
+        for (int wi = 0; wi < words.length; ++wi) {
+            long word = wi < src.length ? src[wi] : 0L;
+            for (; k < kill.length && wordIndex(kill[k]) == wi; ++k) {
+                word &= ~(1L << kill[k]);
+            }
+            for (; g < gen.length && wordIndex(gen[g]) == wi; ++g) {
+                word |= 1L << gen[g];
+            }
+            if (word != words[wi]) {
+                words[wi] = word;
+                changed = true;
+            }
+        }
+        return recordChange(changed);
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(this);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+        modified(0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lastNonZeroWord(words) < 0;
+    }
+
+    /**
+     * @return the indexes of the elements in this fact, in ascending order.
+     */
+    public IntStream indexes() {
+        return IntStream.range(0, words.length)
+                .flatMap(wi -> {
+                    long word = words[wi];
+                    IntStream.Builder builder = IntStream.builder();
+                    while (word != 0) {
+                        builder.add(wi * BITS_PER_WORD + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                    return builder.build();
+                });
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return indexes().mapToObj(indexer::getObject);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (int wi = 0; wi < words.length; ++wi) {
+            long word = words[wi];
+            while (word != 0) {
+                action.accept(indexer.getObject(
+                        wi * BITS_PER_WORD + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    private static int lastNonZeroWord(long[] words) {
+        int wi = words.length - 1;
+        while (wi >= 0 && words[wi] == 0) {
+            --wi;
+        }
+        return wi;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        BitSetFact<?> that = (BitSetFact<?>) o;
+        int n = lastNonZeroWord(words);
+        if (n != lastNonZeroWord(that.words)) {
+            return false;
+        }
+        return Arrays.equals(words, 0, n + 1, that.words, 0, n + 1);
+    }
+
+    @Override
+    public int hashCode() {
+        // ignore trailing zero words, which do not contribute to the content
+        long h = 1234;
+        for (int wi = lastNonZeroWord(words); wi >= 0; --wi) {
+            h ^= words[wi] * (wi + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
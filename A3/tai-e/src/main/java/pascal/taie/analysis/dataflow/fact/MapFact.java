@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
@@ -34,6 +35,16 @@ import java.util.stream.Stream;
 
 /**
  * Represents map-like data-flow facts.
+ * <p>
+ * A fact maintains a modification stamp, which is incremented whenever
+ * its content is changed, so that clients can tell whether a fact has
+ * changed since an earlier point by comparing stamps, without comparing
+ * the content. A fact also maintains its hash code incrementally, which
+ * allows {@link #equals(Object)} to tell most unequal facts apart
+ * without walking the mappings.
+ * <p>
+ * Subclasses which modify {@link #map} directly must report the
+ * modifications via {@link #modified(int)}.
  *
  * @param <K> type of keys
  * @param <V> type of values
@@ -45,13 +56,72 @@ public class MapFact<K, V> {
      */
     protected final Map<K, V> map;
 
+    /**
+     * Hash code of {@link #map}, i.e., the sum of the hash codes
+     * of its entries.
+     */
+    private int hash;
+
+    /**
+     * Modification stamp of this fact.
+     */
+    private int stamp;
+
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
      *
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this(map, true);
+    }
+
+    /**
+     * Constructs a new MapFact backed by specified Map. This allows
+     * subclasses to use specialized Map implementations.
+     *
+     * @param map  the map whose mappings are to be placed in this map.
+     * @param copy if true, the mappings are copied to a new map,
+     *             otherwise, the given map is used directly.
+     */
+    protected MapFact(Map<K, V> map, boolean copy) {
+        this(copy ? Maps.newHybridMap(map) : map, map.hashCode());
+    }
+
+    /**
+     * Constructs a new MapFact backed by specified Map, whose hash code
+     * is already known, e.g., when copying another fact.
+     *
+     * @param map  the map which is used directly.
+     * @param hash the hash code of map.
+     */
+    protected MapFact(Map<K, V> map, int hash) {
+        this.map = map;
+        this.hash = hash;
+    }
+
+    /**
+     * @return the modification stamp of this fact. If the stamp of a fact
+     * is unchanged between two calls of this method, then the content of
+     * the fact is unchanged between them.
+     */
+    public int getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Records a modification of this fact performed on {@link #map}
+     * directly by a subclass.
+     *
+     * @param hash the hash code of map after the modification.
+     */
+    protected void modified(int hash) {
+        this.hash = hash;
+        ++stamp;
+    }
+
+    private static int entryHash(Object key, Object value) {
+        return Objects.hashCode(key) ^ Objects.hashCode(value);
     }
 
     /**
@@ -68,7 +138,16 @@ public class MapFact<K, V> {
      * @return if the update changes this fact.
      */
     public boolean update(K key, V value) {
-        return !Objects.equals(map.put(key, value), value);
+        V old = map.put(key, value);
+        if (Objects.equals(old, value)) {
+            return false;
+        }
+        int h = hash + entryHash(key, value);
+        if (old != null) {
+            h -= entryHash(key, old);
+        }
+        modified(h);
+        return true;
     }
 
     /**
@@ -78,7 +157,11 @@ public class MapFact<K, V> {
      * or null if there was no mapping for key.
      */
     public V remove(K key) {
-        return map.remove(key);
+        V old = map.remove(key);
+        if (old != null) {
+            modified(hash - entryHash(key, old));
+        }
+        return old;
     }
 
     /**
@@ -87,39 +170,55 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
-        boolean changed = false;
+        if (map.isEmpty() && getClass() == fact.getClass()) {
+            // facts of the same class hold the same kind of mappings,
+            // so the mappings and the hash code can be copied in bulk
+            if (fact.map.isEmpty()) {
+                return false;
+            }
+            map.putAll(fact.map);
+            modified(fact.hash);
+            return true;
+        }
+        int oldStamp = stamp;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
-            changed |= update(entry.getKey(), entry.getValue());
+            update(entry.getKey(), entry.getValue());
         }
-        return changed;
+        return stamp != oldStamp;
     }
 
     /**
      * Creates and returns a copy of this fact.
      */
     public MapFact<K, V> copy() {
-        return new MapFact<>(this.map);
+        return new MapFact<>(Maps.newHybridMap(map), hash);
     }
 
     /**
      * Clears all content in this fact.
      */
     public void clear() {
-        map.clear();
+        if (!map.isEmpty()) {
+            map.clear();
+            modified(0);
+        }
     }
 
     /**
-     * @return a {@link Set} view of the keys contained in this fact.
+     * @return an unmodifiable {@link Set} view of the keys contained
+     * in this fact. The fact must be modified via its own methods,
+     * which maintain its hash code and modification stamp.
      */
     public Set<K> keySet() {
-        return map.keySet();
+        return Collections.unmodifiableSet(map.keySet());
     }
 
     /**
-     * @return all entries (key-value mappings) in this fact.
+     * @return all entries (key-value mappings) in this fact,
+     * which cannot be modified.
      */
     public Stream<Map.Entry<K, V>> entries() {
-        return map.entrySet().stream();
+        return Collections.unmodifiableMap(map).entrySet().stream();
     }
 
     /**
@@ -141,12 +240,12 @@ public class MapFact<K, V> {
             return false;
         }
         MapFact<?, ?> that = (MapFact<?, ?>) o;
-        return map.equals(that.map);
+        return hash == that.hash && map.equals(that.map);
     }
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        return hash;
     }
 
     @Override
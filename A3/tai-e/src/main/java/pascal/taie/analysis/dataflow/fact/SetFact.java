@@ -27,12 +27,23 @@ import pascal.taie.util.collection.Sets;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
  * Represents set-like data-flow facts.
+ * <p>
+ * Like {@link MapFact}, a fact maintains a modification stamp and its
+ * hash code incrementally. Subclasses which modify {@link #set} directly,
+ * or store the elements elsewhere, must report the modifications via
+ * {@link #modified(int)}.
+ * <p>
+ * The methods of this class access other facts only via their public
+ * methods, so that facts of different implementations can be operated
+ * together. However, facts of different implementations are never equal.
  *
  * @param <E> type of elements
  */
@@ -40,14 +51,65 @@ public class SetFact<E> {
 
     protected final Set<E> set;
 
+    /**
+     * Hash code of {@link #set}, i.e., the sum of the hash codes
+     * of its elements.
+     */
+    private int hash;
+
+    /**
+     * Modification stamp of this fact.
+     */
+    private int stamp;
+
     public SetFact(Collection<E> c) {
-        set = Sets.newHybridSet(c);
+        this(Sets.newHybridSet(c), 0);
+        hash = set.hashCode();
     }
 
     public SetFact() {
         this(Collections.emptySet());
     }
 
+    private SetFact(SetFact<E> fact) {
+        this(Sets.newHybridSet(fact.set), fact.hash);
+    }
+
+    /**
+     * Constructs a fact backed by given set, which is not copied.
+     * <p>
+     * The subclasses which store the elements by themselves can pass an
+     * immutable empty set, e.g., {@link Collections#emptySet()}, and then
+     * they must override all the methods that access {@link #set}.
+     *
+     * @param set  the set that stores the elements of this fact
+     * @param hash hash code of the set
+     */
+    protected SetFact(Set<E> set, int hash) {
+        this.set = set;
+        this.hash = hash;
+    }
+
+    /**
+     * @return the modification stamp of this fact. If the stamp of a fact
+     * is unchanged between two calls of this method, then the content of
+     * the fact is unchanged between them.
+     */
+    public int getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Records a modification of this fact performed by a subclass
+     * without the methods of this class.
+     *
+     * @param hash the hash code of the elements after the modification.
+     */
+    protected void modified(int hash) {
+        this.hash = hash;
+        ++stamp;
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -61,7 +123,11 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean add(E e) {
-        return set.add(e);
+        if (set.add(e)) {
+            modified(hash + Objects.hashCode(e));
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -70,7 +136,11 @@ public class SetFact<E> {
      * @return true if an element was removed as a result of the call, otherwise false.
      */
     public boolean remove(E e) {
-        return set.remove(e);
+        if (set.remove(e)) {
+            modified(hash - Objects.hashCode(e));
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -80,7 +150,15 @@ public class SetFact<E> {
      * otherwise false.
      */
     public boolean removeIf(Predicate<E> filter) {
-        return set.removeIf(filter);
+        int oldStamp = stamp;
+        set.removeIf(e -> {
+            if (filter.test(e)) {
+                modified(hash - Objects.hashCode(e));
+                return true;
+            }
+            return false;
+        });
+        return stamp != oldStamp;
     }
 
     /**
@@ -89,7 +167,9 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        int oldStamp = stamp;
+        other.forEach(this::add);
+        return stamp != oldStamp;
     }
 
     /**
@@ -107,7 +187,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return removeIf(e -> !other.contains(e));
     }
 
     /**
@@ -131,14 +211,17 @@ public class SetFact<E> {
      * Creates and returns a copy of this fact.
      */
     public SetFact<E> copy() {
-        return new SetFact<>(this.set);
+        return new SetFact<>(this);
     }
 
     /**
      * Clears all content in this fact.
      */
     public void clear() {
-        set.clear();
+        if (!set.isEmpty()) {
+            set.clear();
+            modified(0);
+        }
     }
 
     public boolean isEmpty() {
@@ -149,6 +232,13 @@ public class SetFact<E> {
         return set.stream();
     }
 
+    /**
+     * Performs the given action for each element of this fact.
+     */
+    public void forEach(Consumer<? super E> action) {
+        set.forEach(action);
+    }
+
     public int size() {
         return set.size();
     }
@@ -158,15 +248,16 @@ public class SetFact<E> {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof SetFact<?> that)) {
+        if (o == null || o.getClass() != getClass()) {
             return false;
         }
-        return set.equals(that.set);
+        SetFact<?> that = (SetFact<?>) o;
+        return hash == that.hash && set.equals(that.set);
     }
 
     @Override
     public int hashCode() {
-        return set.hashCode();
+        return hash;
     }
 
     @Override
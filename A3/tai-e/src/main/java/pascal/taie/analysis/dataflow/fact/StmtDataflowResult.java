@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Map;
+
+/**
+ * {@link DataflowResult} for CFGs of {@link Stmt}s, which stores the facts
+ * in arrays indexed by {@link Stmt#getIndex()} instead of hash maps.
+ * The facts of the entry and exit nodes of the CFG, which are not
+ * statements of the IR, are stored separately.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class StmtDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    private final Stmt entry;
+
+    private final Stmt exit;
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    private Fact entryInFact;
+
+    private Fact entryOutFact;
+
+    private Fact exitInFact;
+
+    private Fact exitOutFact;
+
+    public StmtDataflowResult(CFG<Stmt> cfg) {
+        super(Map.of(), Map.of());
+        this.entry = cfg.getEntry();
+        this.exit = cfg.getExit();
+        int size = cfg.getIR().getStmts().size();
+        this.inFacts = new Object[size];
+        this.outFacts = new Object[size];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Stmt node) {
+        if (node == entry) {
+            return entryInFact;
+        } else if (node == exit) {
+            return exitInFact;
+        } else {
+            return (Fact) inFacts[node.getIndex()];
+        }
+    }
+
+    @Override
+    public void setInFact(Stmt node, Fact fact) {
+        if (node == entry) {
+            entryInFact = fact;
+        } else if (node == exit) {
+            exitInFact = fact;
+        } else {
+            inFacts[node.getIndex()] = fact;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Stmt node) {
+        if (node == entry) {
+            return entryOutFact;
+        } else if (node == exit) {
+            return exitOutFact;
+        } else {
+            return (Fact) outFacts[node.getIndex()];
+        }
+    }
+
+    @Override
+    public void setOutFact(Stmt node, Fact fact) {
+        if (node == entry) {
+            entryOutFact = fact;
+        } else if (node == exit) {
+            exitOutFact = fact;
+        } else {
+            outFacts[node.getIndex()] = fact;
+        }
+    }
+}
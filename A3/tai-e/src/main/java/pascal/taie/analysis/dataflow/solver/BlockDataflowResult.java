@@ -0,0 +1,406 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BasicBlockGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link DataflowResult} which stores facts only at the boundaries of
+ * {@link BasicBlock}s, i.e., the in fact of the first node and the out fact
+ * of the last node of each block. The facts of the other nodes are
+ * recomputed on demand by applying the transfer functions of the block,
+ * and the facts of the most recently queried block are cached.
+ * <p>
+ * After solving, the result can be {@link #compact() compacted} to keep
+ * only the facts at the join points of the CFG (which include all loop
+ * heads), i.e., the in facts of the blocks which do not have exactly one
+ * incoming edge for forward analyses, and the out facts of the blocks
+ * which do not have exactly one outgoing edge for backward analyses.
+ * The facts of the other blocks are recomputed from their unique
+ * neighbors on demand, by the {@link DataflowAnalysis#getQueryAnalysis()
+ * query analysis}, so that the data used only for solving is released.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class BlockDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    private DataflowAnalysis<Node, Fact> analysis;
+
+    private final BasicBlockGraph<Node> graph;
+
+    private final Object[] inFacts;
+
+    private final Object[] outFacts;
+
+    /**
+     * Whether the facts of some blocks have been dropped by {@link #compact()}.
+     */
+    private boolean compacted;
+
+    private volatile BlockFacts<Node> cache;
+
+    BlockDataflowResult(DataflowAnalysis<Node, Fact> analysis,
+                        BasicBlockGraph<Node> graph) {
+        super(Map.of(), Map.of());
+        this.analysis = analysis;
+        this.graph = graph;
+        this.inFacts = new Object[graph.getNumberOfNodes()];
+        this.outFacts = new Object[graph.getNumberOfNodes()];
+    }
+
+    BasicBlockGraph<Node> getGraph() {
+        return graph;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Node node) {
+        BasicBlock<Node> block = graph.getBlockOf(node);
+        if (block == null) {
+            return null;
+        } else if (node == block.getFirst() && isStored(block, inFacts)) {
+            return (Fact) inFacts[block.getIndex()];
+        } else {
+            BlockFacts<Node> facts = materialize(block);
+            return (Fact) facts.inFacts()[facts.positions().get(node)];
+        }
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        BasicBlock<Node> block = graph.getBlockOf(node);
+        if (block == null || node != block.getFirst() || compacted) {
+            throw new UnsupportedOperationException(
+                    "Cannot set in fact of " + node + ", which does not" +
+                            " start a basic block or has been compacted");
+        }
+        inFacts[block.getIndex()] = fact;
+        cache = null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Node node) {
+        BasicBlock<Node> block = graph.getBlockOf(node);
+        if (block == null) {
+            return null;
+        } else if (node == block.getLast() && isStored(block, outFacts)) {
+            return (Fact) outFacts[block.getIndex()];
+        } else {
+            BlockFacts<Node> facts = materialize(block);
+            return (Fact) facts.outFacts()[facts.positions().get(node)];
+        }
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        BasicBlock<Node> block = graph.getBlockOf(node);
+        if (block == null || node != block.getLast() || compacted) {
+            throw new UnsupportedOperationException(
+                    "Cannot set out fact of " + node + ", which does not" +
+                            " end a basic block or has been compacted");
+        }
+        outFacts[block.getIndex()] = fact;
+        cache = null;
+    }
+
+    /**
+     * @return true if the fact of given block in given array is available
+     * without recomputation.
+     */
+    private boolean isStored(BasicBlock<Node> block, Object[] facts) {
+        if (!compacted || facts[block.getIndex()] != null) {
+            return true;
+        }
+        // the in fact of the entry and the out fact of the exit
+        // are always absent
+        return analysis.isForward() ?
+                facts == inFacts && block == graph.getEntry() :
+                facts == outFacts && block == graph.getExit();
+    }
+
+    /**
+     * Marks the end of solving. Afterwards, the facts are recomputed by
+     * the uninstrumented analysis, so that the queries after solving
+     * do not affect the statistics of the solver.
+     */
+    void finishSolving() {
+        analysis = InstrumentedAnalysis.unwrap(analysis);
+    }
+
+    /**
+     * Drops the facts which can be recomputed from the facts of unique
+     * neighbor blocks. This should be called after {@link #finishSolving()},
+     * and afterwards the facts cannot be set anymore.
+     */
+    void compact() {
+        boolean forward = analysis.isForward();
+        BasicBlock<Node> boundary = forward ? graph.getEntry() : graph.getExit();
+        // decide the blocks whose facts are kept
+        int n = graph.getNumberOfNodes();
+        boolean[] keep = new boolean[n];
+        for (BasicBlock<Node> block : graph.getBlocks()) {
+            keep[block.getIndex()] = block == boundary ||
+                    getUniqueEdge(block, forward) == null;
+        }
+        // ensure that following unique neighbors from any block reaches
+        // a kept block, which may not hold in unreachable cycles
+        byte[] state = new byte[n]; // 0: unknown, 1: visiting, 2: done
+        for (BasicBlock<Node> block : graph.getBlocks()) {
+            Deque<BasicBlock<Node>> path = new ArrayDeque<>();
+            BasicBlock<Node> b = block;
+            while (!keep[b.getIndex()] && state[b.getIndex()] == 0) {
+                state[b.getIndex()] = 1;
+                path.push(b);
+                b = getNeighbor(b, forward);
+            }
+            if (state[b.getIndex()] == 1) {
+                keep[b.getIndex()] = true;
+            }
+            path.forEach(p -> state[p.getIndex()] = 2);
+        }
+        // drop the facts
+        for (BasicBlock<Node> block : graph.getBlocks()) {
+            int i = block.getIndex();
+            if (forward) {
+                outFacts[i] = block == boundary ? outFacts[i] : null;
+                inFacts[i] = keep[i] ? inFacts[i] : null;
+            } else {
+                inFacts[i] = block == boundary ? inFacts[i] : null;
+                outFacts[i] = keep[i] ? outFacts[i] : null;
+            }
+        }
+        analysis = analysis.getQueryAnalysis();
+        compacted = true;
+        cache = null;
+    }
+
+    /**
+     * @return the unique incoming edge (outgoing edge for backward analyses)
+     * of given block, or null if the block does not have exactly one.
+     */
+    @Nullable
+    private Edge<Node> getUniqueEdge(BasicBlock<Node> block, boolean forward) {
+        CFG<Node> cfg = graph.getCFG();
+        Set<Edge<Node>> edges = forward ? cfg.getInEdgesOf(block.getFirst())
+                : cfg.getOutEdgesOf(block.getLast());
+        return edges.size() == 1 ? edges.iterator().next() : null;
+    }
+
+    private BasicBlock<Node> getNeighbor(BasicBlock<Node> block, boolean forward) {
+        Edge<Node> edge = getUniqueEdge(block, forward);
+        assert edge != null;
+        return graph.getBlockOf(forward ? edge.getSource() : edge.getTarget());
+    }
+
+    /**
+     * Applies the transfer functions of the nodes in given block,
+     * starting from given fact, to all nodes except the last one
+     * (the first one for backward analyses).
+     *
+     * @param fact the in fact of the first node of the block for forward
+     *             analyses, or the out fact of the last node for backward
+     *             analyses.
+     * @param ins  if not null, records the in facts of the nodes
+     * @param outs if not null, records the out facts of the nodes
+     * @return the in fact of the last node of the block for forward analyses,
+     * or the out fact of the first node for backward analyses.
+     */
+    Fact flowThrough(BasicBlock<Node> block, Fact fact,
+                     @Nullable Object[] ins, @Nullable Object[] outs) {
+        CFG<Node> cfg = graph.getCFG();
+        List<Node> nodes = block.getNodes();
+        int last = nodes.size() - 1;
+        if (analysis.isForward()) {
+            for (int i = 0; i < last; ++i) {
+                Node node = nodes.get(i);
+                Fact out = analysis.newInitialFact(cfg);
+                analysis.transferNode(node, fact, out);
+                fact = out;
+                Edge<Node> edge = cfg.getOutEdgesOf(node).iterator().next();
+                if (analysis.needTransferEdge(edge)) {
+                    fact = analysis.transferEdge(edge, fact);
+                }
+                if (ins != null) {
+                    ins[i + 1] = fact;
+                }
+                if (outs != null) {
+                    outs[i] = out;
+                }
+            }
+        } else {
+            for (int i = last; i > 0; --i) {
+                Node node = nodes.get(i);
+                Fact in = analysis.newInitialFact(cfg);
+                analysis.transferNode(node, in, fact);
+                fact = in;
+                Edge<Node> edge = cfg.getInEdgesOf(node).iterator().next();
+                if (analysis.needTransferEdge(edge)) {
+                    fact = analysis.transferEdge(edge, fact);
+                }
+                if (ins != null) {
+                    ins[i] = in;
+                }
+                if (outs != null) {
+                    outs[i - 1] = fact;
+                }
+            }
+        }
+        return fact;
+    }
+
+    /**
+     * Computes the facts of given block, recomputing the dropped
+     * boundary facts from the neighbor blocks if necessary.
+     */
+    @SuppressWarnings("unchecked")
+    private BlockFacts<Node> materialize(BasicBlock<Node> block) {
+        BlockFacts<Node> facts = cache;
+        if (facts != null && facts.block() == block) {
+            return facts;
+        }
+        int size = block.size();
+        int i = block.getIndex();
+        Object[] ins = new Object[size];
+        Object[] outs = new Object[size];
+        if (analysis.isForward()) {
+            Fact in = isStored(block, inFacts) ? (Fact) inFacts[i]
+                    : recomputeBoundary(block, facts);
+            ins[0] = in;
+            Fact lastIn = flowThrough(block, in, ins, outs);
+            outs[size - 1] = isStored(block, outFacts) ? outFacts[i]
+                    : transfer(block.getLast(), lastIn);
+        } else {
+            Fact out = isStored(block, outFacts) ? (Fact) outFacts[i]
+                    : recomputeBoundary(block, facts);
+            outs[size - 1] = out;
+            Fact firstOut = flowThrough(block, out, ins, outs);
+            ins[0] = isStored(block, inFacts) ? inFacts[i]
+                    : transfer(block.getFirst(), firstOut);
+        }
+        Map<Node, Integer> positions = Maps.newMap(size);
+        for (int j = 0; j < size; ++j) {
+            positions.put(block.getNodes().get(j), j);
+        }
+        facts = new BlockFacts<>(block, positions, ins, outs);
+        cache = facts;
+        return facts;
+    }
+
+    /**
+     * Recomputes the dropped in fact (out fact for backward analyses)
+     * of given block by following the unique neighbors to a block
+     * whose facts are available.
+     *
+     * @param cached facts of the previously queried block, which are
+     *               reused if the block is on the path, may be null.
+     */
+    @SuppressWarnings("unchecked")
+    private Fact recomputeBoundary(BasicBlock<Node> block,
+                                   @Nullable BlockFacts<Node> cached) {
+        boolean forward = analysis.isForward();
+        // collect the unique edges on the path to a block
+        // whose facts are available
+        Deque<Edge<Node>> path = new ArrayDeque<>();
+        BasicBlock<Node> b = block;
+        Fact fact;
+        while (true) {
+            Edge<Node> edge = getUniqueEdge(b, forward);
+            assert edge != null;
+            path.push(edge);
+            b = graph.getBlockOf(forward ? edge.getSource() : edge.getTarget());
+            if (cached != null && cached.block() == b) {
+                fact = (Fact) (forward ? cached.outFacts()[b.size() - 1]
+                        : cached.inFacts()[0]);
+                break;
+            } else if (forward && isStored(b, outFacts)) {
+                fact = (Fact) outFacts[b.getIndex()];
+                break;
+            } else if (!forward && isStored(b, inFacts)) {
+                fact = (Fact) inFacts[b.getIndex()];
+                break;
+            } else if (forward && isStored(b, inFacts)) {
+                fact = transfer(b.getLast(),
+                        flowThrough(b, (Fact) inFacts[b.getIndex()], null, null));
+                break;
+            } else if (!forward && isStored(b, outFacts)) {
+                fact = transfer(b.getFirst(),
+                        flowThrough(b, (Fact) outFacts[b.getIndex()], null, null));
+                break;
+            }
+        }
+        // propagate the fact back along the path
+        CFG<Node> cfg = graph.getCFG();
+        while (true) {
+            Edge<Node> edge = path.pop();
+            if (analysis.needTransferEdge(edge)) {
+                fact = analysis.transferEdge(edge, fact);
+            }
+            Fact boundary = analysis.newInitialFact(cfg);
+            analysis.meetInto(fact, boundary);
+            if (path.isEmpty()) {
+                return boundary;
+            }
+            b = graph.getBlockOf(forward ? edge.getTarget() : edge.getSource());
+            fact = forward ? transfer(b.getLast(), flowThrough(b, boundary, null, null))
+                    : transfer(b.getFirst(), flowThrough(b, boundary, null, null));
+        }
+    }
+
+    /**
+     * Applies the transfer function of given node to given fact
+     * (the in fact for forward analyses, or the out fact for backward
+     * analyses), and returns the resulting fact.
+     */
+    private Fact transfer(Node node, Fact fact) {
+        Fact result = analysis.newInitialFact(graph.getCFG());
+        if (analysis.isForward()) {
+            analysis.transferNode(node, fact, result);
+        } else {
+            analysis.transferNode(node, result, fact);
+        }
+        return result;
+    }
+
+    /**
+     * Facts of all nodes in a block.
+     */
+    private record BlockFacts<Node>(BasicBlock<Node> block,
+                                    Map<Node, Integer> positions,
+                                    Object[] inFacts, Object[] outFacts) {
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.BasicBlock;
+import pascal.taie.analysis.graph.cfg.BasicBlockGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.Queue;
+
+/**
+ * Work-list solver which iterates over {@link BasicBlock}s instead of
+ * individual CFG nodes. Each block is processed by composing the transfer
+ * functions of its nodes, and facts are stored only at block boundaries,
+ * see {@link BlockDataflowResult}.
+ * <p>
+ * If the solver is demand-driven, then after solving, the result keeps
+ * only the facts at the join points of the CFG, and recomputes the
+ * other facts when they are queried.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    private final boolean demandDriven;
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis, boolean demandDriven) {
+        super(analysis);
+        this.demandDriven = demandDriven;
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        DataflowResult<Node, Fact> result = super.solve(cfg);
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        blockResult.finishSolving();
+        if (demandDriven) {
+            blockResult.compact();
+        }
+        return result;
+    }
+
+    @Override
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        // the transfers during solving are counted by the instrumented
+        // analysis, see BlockDataflowResult.finishSolving()
+        return new BlockDataflowResult<>(analysis, new BasicBlockGraph<>(cfg));
+    }
+
+    @Override
+    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BasicBlockGraph<Node> graph = getGraph(result);
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        for (BasicBlock<Node> block : graph.getBlocks()) {
+            if (block != graph.getEntry()) {
+                result.setInFact(block.getFirst(), analysis.newInitialFact(cfg));
+                result.setOutFact(block.getLast(), analysis.newInitialFact(cfg));
+            }
+        }
+    }
+
+    @Override
+    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BasicBlockGraph<Node> graph = getGraph(result);
+        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
+        for (BasicBlock<Node> block : graph.getBlocks()) {
+            if (block != graph.getExit()) {
+                result.setInFact(block.getFirst(), analysis.newInitialFact(cfg));
+                result.setOutFact(block.getLast(), analysis.newInitialFact(cfg));
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BasicBlockGraph<Node> graph = blockResult.getGraph();
+        CompactCFG compact = getCompactCFG(cfg);
+        Queue<BasicBlock<Node>> workList = new SetQueue<>();
+        workList.addAll(graph.getBlocks());
+        recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            if (block == graph.getEntry()) {
+                continue;
+            }
+            meetPredecessors(cfg, compact, block.getFirst(), result);
+            Node last = block.getLast();
+            Fact lastIn = blockResult.flowThrough(block,
+                    result.getInFact(block.getFirst()), null, null);
+            if (analysis.transferNode(last, lastIn, result.getOutFact(last))) {
+                workList.addAll(graph.getSuccsOf(block));
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        BlockDataflowResult<Node, Fact> blockResult = (BlockDataflowResult<Node, Fact>) result;
+        BasicBlockGraph<Node> graph = blockResult.getGraph();
+        CompactCFG compact = getCompactCFG(cfg);
+        Queue<BasicBlock<Node>> workList = new SetQueue<>();
+        workList.addAll(graph.getBlocks());
+        recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            if (block == graph.getExit()) {
+                continue;
+            }
+            meetSuccessors(cfg, compact, block.getLast(), result);
+            Node first = block.getFirst();
+            Fact firstOut = blockResult.flowThrough(block,
+                    result.getOutFact(block.getLast()), null, null);
+            if (analysis.transferNode(first, result.getInFact(first), firstOut)) {
+                workList.addAll(graph.getPredsOf(block));
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    private static <Node, Fact> BasicBlockGraph<Node> getGraph(
+            DataflowResult<Node, Fact> result) {
+        return ((BlockDataflowResult<Node, Fact>) result).getGraph();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+/**
+ * Wraps a data-flow analysis and records the statistics of its
+ * transfer functions and meet operations.
+ */
+class InstrumentedAnalysis<Node, Fact> implements DataflowAnalysis<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final SolverStats<Node> stats;
+
+    InstrumentedAnalysis(DataflowAnalysis<Node, Fact> analysis,
+                         SolverStats<Node> stats) {
+        this.analysis = analysis;
+        this.stats = stats;
+    }
+
+    SolverStats<Node> getStats() {
+        return stats;
+    }
+
+    /**
+     * @return the analysis wrapped by given analysis if it is instrumented,
+     * otherwise given analysis itself.
+     */
+    static <Node, Fact> DataflowAnalysis<Node, Fact> unwrap(
+            DataflowAnalysis<Node, Fact> analysis) {
+        return analysis instanceof InstrumentedAnalysis<Node, Fact> instrumented
+                ? instrumented.analysis : analysis;
+    }
+
+    @Override
+    public Fact newBoundaryFact(CFG<Node> cfg) {
+        return analysis.newBoundaryFact(cfg);
+    }
+
+    @Override
+    public Fact newInitialFact() {
+        return analysis.newInitialFact();
+    }
+
+    @Override
+    public Fact newInitialFact(CFG<Node> cfg) {
+        return analysis.newInitialFact(cfg);
+    }
+
+    @Override
+    public void meetInto(Fact fact, Fact target) {
+        long start = System.nanoTime();
+        analysis.meetInto(fact, target);
+        stats.recordMeet(System.nanoTime() - start);
+    }
+
+    @Override
+    public boolean isForward() {
+        return analysis.isForward();
+    }
+
+    @Override
+    public boolean transferNode(Node node, Fact in, Fact out) {
+        long start = System.nanoTime();
+        boolean changed = analysis.transferNode(node, in, out);
+        stats.recordTransfer(node, System.nanoTime() - start);
+        return changed;
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Node> edge) {
+        return analysis.needTransferEdge(edge);
+    }
+
+    @Override
+    public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+        return analysis.transferEdge(edge, nodeFact);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Component;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list solver which always processes the pending node with
+ * the highest priority. Nodes are prioritized by reverse postorder of
+ * the CFG for forward analyses, and by postorder for backward analyses,
+ * so that, apart from back edges, a node is processed after all nodes
+ * that flow into it.
+ * <p>
+ * The work list is a bit set over the priorities of the nodes, so that
+ * a node is never queued twice, and polling the next node is simply
+ * finding the lowest set bit.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        List<Node> order = postOrder(cfg);
+        Collections.reverse(order);
+        solve(cfg, result, order);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        solve(cfg, result, postOrder(cfg));
+    }
+
+    /**
+     * Solves given CFG, processing the nodes by their positions in
+     * given order. The nodes which the fact of each node flows into
+     * are resolved to priorities up front, so that the iteration does
+     * not allocate any objects, except the ones allocated by the analysis.
+     */
+    private void solve(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                       List<Node> order) {
+        CompactCFG compact = getCompactCFG(cfg);
+        int[][] dependents = getDependents(cfg, order);
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        recordWorkListSize(order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            if (update(cfg, compact, result, order.get(i))) {
+                for (int dependent : dependents[i]) {
+                    workList.set(dependent);
+                }
+                if (collectsStats()) {
+                    recordWorkListSize(workList.cardinality());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the priorities of the successors (predecessors for backward
+     * analyses) of each node, indexed by the priorities of the nodes.
+     */
+    private int[][] getDependents(CFG<Node> cfg, List<Node> order) {
+        Map<Node, Integer> priorities = indexOf(order);
+        int[][] dependents = new int[order.size()][];
+        for (int i = 0; i < order.size(); ++i) {
+            Node node = order.get(i);
+            dependents[i] = (analysis.isForward()
+                    ? cfg.getSuccsOf(node) : cfg.getPredsOf(node))
+                    .stream()
+                    .mapToInt(priorities::get)
+                    .toArray();
+        }
+        return dependents;
+    }
+
+    /**
+     * Prioritizes the nodes of the component by their WTO order, which,
+     * like reverse postorder, orders a node after all nodes that flow
+     * into it apart from back edges.
+     */
+    @Override
+    protected void solveComponent(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Component<Node> component, List<Node> nodes) {
+        CompactCFG compact = getCompactCFG(cfg);
+        Map<Node, Integer> priorities = indexOf(nodes);
+        BitSet workList = new BitSet(nodes.size());
+        workList.set(0, nodes.size());
+        recordWorkListSize(nodes.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            Node node = nodes.get(i);
+            if (update(cfg, compact, result, node)) {
+                for (Node succ : analysis.isForward()
+                        ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                    Integer priority = priorities.get(succ);
+                    if (priority != null) {
+                        workList.set(priority);
+                    }
+                }
+                if (collectsStats()) {
+                    recordWorkListSize(workList.cardinality());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return all nodes of given CFG in postorder of a depth-first
+     * traversal from the entry. Nodes unreachable from the entry
+     * are traversed afterwards, so that every node is included.
+     */
+    static <Node> List<Node> postOrder(CFG<Node> cfg) {
+        List<Node> order = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        visit(cfg, cfg.getEntry(), visited, order);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                visit(cfg, node, visited, order);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Iterative depth-first traversal which appends nodes to order
+     * in postorder. Iterative traversal avoids stack overflow on
+     * large methods.
+     */
+    private static <Node> void visit(CFG<Node> cfg, Node root,
+                                     Set<Node> visited, List<Node> order) {
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visited.add(root);
+        nodes.push(root);
+        succs.push(cfg.getSuccsOf(root).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                order.add(nodes.pop());
+                succs.pop();
+            }
+        }
+    }
+
+    private static <Node> Map<Node, Integer> indexOf(List<Node> order) {
+        Map<Node, Integer> indexes = Maps.newMap(order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            indexes.put(order.get(i), i);
+        }
+        return indexes;
+    }
+}
@@ -24,11 +24,33 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.StmtDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Component;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Cycle;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Vertex;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 
 /**
  * Base class for data-flow analysis solver, which provides common
  * functionalities for different solver implementations.
+ * Solvers keep no state across calls of {@link #solve(CFG)}, thus
+ * a solver can solve CFGs of different methods concurrently.
  *
  * @param <Node> type of CFG nodes
  * @param <Fact> type of data-flow facts
@@ -37,8 +59,17 @@ public abstract class Solver<Node, Fact> {
 
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Statistics of solving, which is non-null only if the analysis
+     * is instrumented, see {@link #makeInstrumentedSolver}.
+     */
+    @Nullable
+    private final SolverStats<Node> stats;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
+        this.stats = analysis instanceof InstrumentedAnalysis<Node, Fact> instrumented
+                ? instrumented.getStats() : null;
     }
 
     /**
@@ -49,6 +80,53 @@ public abstract class Solver<Node, Fact> {
         return new WorkListSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver of given kind
+     * for given analysis. Available kinds are:
+     * <ul>
+     *     <li>{@code worklist}: FIFO work-list solver (default)</li>
+     *     <li>{@code priority}: work-list solver which processes nodes
+     *     in reverse postorder (postorder for backward analyses)</li>
+     *     <li>{@code wto}: solver which iterates over the weak topological
+     *     ordering of the CFG and stabilizes inner loops first</li>
+     *     <li>{@code block}: work-list solver which iterates over basic
+     *     blocks and stores facts only at block boundaries</li>
+     *     <li>{@code demand}: the {@code block} solver whose result keeps
+     *     only the facts at join points after solving, and recomputes
+     *     the other facts on demand</li>
+     * </ul>
+     *
+     * @param kind kind of the solver, {@code null} means the default one
+     * @throws ConfigException if the given kind is unknown
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            return makeSolver(analysis);
+        }
+        return switch (kind) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            case "block" -> new BlockSolver<>(analysis, false);
+            case "demand" -> new BlockSolver<>(analysis, true);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind, which
+     * records statistics of the transfer functions and meet operations
+     * of given analysis, as well as the work list, in given stats.
+     * As the stats are specific to a CFG, the returned solver should
+     * be used to solve only one CFG.
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeInstrumentedSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind,
+            SolverStats<Node> stats) {
+        return makeSolver(new InstrumentedAnalysis<>(analysis, stats), kind);
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -56,18 +134,159 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        long start = stats != null ? System.nanoTime() : 0;
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
+        if (stats != null) {
+            stats.recordSolveTime(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Re-solves the data-flow problem on given CFG after the transfer
+     * functions of some nodes changed, e.g., after the statements of
+     * the nodes were rewritten, reusing the result of previous solving.
+     * <p>
+     * The nodes are visited by the top-level components of the
+     * {@link WeakTopologicalOrder} of the CFG, i.e., its strongly connected
+     * components in topological order, and only the components whose
+     * facts may change are re-solved: the ones containing changed nodes,
+     * and the ones into which the facts flowing out of a re-solved
+     * component actually changed. The facts of a re-solved component are
+     * reset before solving, as the changes may make the facts more precise,
+     * which is not reachable by iterating from the previous facts, and
+     * the component is solved in the iteration order of this solver,
+     * see {@link #solveComponent}. Thus, the cost depends on the size of
+     * the components whose facts change instead of the whole CFG.
+     * <p>
+     * The CFG must be the one on which the previous result was computed,
+     * i.e., the changes must not add or remove nodes or edges.
+     * The results of the {@code block} and {@code demand} solvers store
+     * facts only at block boundaries, thus they are re-solved from scratch.
+     *
+     * @param cfg          control-flow graph where the analysis is performed on
+     * @param result       the previous result on the CFG, which is updated in place
+     * @param changedNodes the nodes whose transfer functions changed
+     * @return the updated result
+     */
+    public DataflowResult<Node, Fact> solveIncrementally(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result,
+            Collection<Node> changedNodes) {
+        if (result instanceof BlockDataflowResult) {
+            return solve(cfg);
+        }
+        long start = stats != null ? System.nanoTime() : 0;
+        boolean forward = analysis.isForward();
+        WeakTopologicalOrder<Node> wto = forward
+                ? WeakTopologicalOrder.forward(cfg)
+                : WeakTopologicalOrder.backward(cfg);
+        Set<Node> dirty = Sets.newSet();
+        dirty.addAll(changedNodes);
+        for (Component<Node> component : wto.getComponents()) {
+            List<Node> nodes = new ArrayList<>();
+            collectNodes(component, nodes);
+            if (nodes.stream().noneMatch(dirty::contains)) {
+                continue;
+            }
+            // the previous facts flowing out of the nodes are detached
+            // from the result by the reset, thus they are kept intact
+            Map<Node, Fact> oldFacts = Maps.newMap(nodes.size());
+            for (Node node : nodes) {
+                oldFacts.put(node, forward
+                        ? result.getOutFact(node) : result.getInFact(node));
+            }
+            if (forward) {
+                resetForward(cfg, result, nodes);
+            } else {
+                resetBackward(cfg, result, nodes);
+            }
+            solveComponent(cfg, result, component, nodes);
+            Set<Node> members = Sets.newSet(nodes.size());
+            members.addAll(nodes);
+            for (Node node : nodes) {
+                Fact fact = forward
+                        ? result.getOutFact(node) : result.getInFact(node);
+                boolean changed = !fact.equals(oldFacts.get(node));
+                for (Edge<Node> edge : forward
+                        ? cfg.getOutEdgesOf(node) : cfg.getInEdgesOf(node)) {
+                    Node succ = forward ? edge.getTarget() : edge.getSource();
+                    if (members.contains(succ)) {
+                        continue;
+                    }
+                    if (changed) {
+                        dirty.add(succ);
+                    }
+                    if (isChainEdge(cfg, edge)) {
+                        // the successor shares the previous fact
+                        if (forward) {
+                            result.setInFact(succ, fact);
+                        } else {
+                            result.setOutFact(succ, fact);
+                        }
+                    }
+                }
+            }
+        }
+        if (stats != null) {
+            stats.recordSolveTime(System.nanoTime() - start);
+        }
         return result;
     }
 
+    /**
+     * Adds the nodes of given WTO component to given list in WTO order.
+     */
+    private static <Node> void collectNodes(Component<Node> component,
+                                            List<Node> nodes) {
+        if (component instanceof Vertex<Node> vertex) {
+            nodes.add(vertex.node());
+        } else {
+            Cycle<Node> cycle = (Cycle<Node>) component;
+            nodes.add(cycle.head());
+            cycle.components().forEach(c -> collectNodes(c, nodes));
+        }
+    }
+
+    /**
+     * Solves the facts of the nodes of given top-level component of
+     * the {@link WeakTopologicalOrder} of given CFG, whose facts have been
+     * reset, while the facts of the other nodes are fixed. This is used by
+     * {@link #solveIncrementally}, and solvers override it to follow their
+     * own iteration order. By default, it iterates a FIFO work list which
+     * initially contains the nodes in WTO order.
+     *
+     * @param nodes the nodes of the component in WTO order
+     */
+    protected void solveComponent(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Component<Node> component, List<Node> nodes) {
+        CompactCFG compact = getCompactCFG(cfg);
+        Set<Node> members = Sets.newSet(nodes.size());
+        members.addAll(nodes);
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(nodes);
+        recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (update(cfg, compact, result, node)) {
+                for (Node succ : analysis.isForward()
+                        ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                    if (members.contains(succ)) {
+                        workList.add(succ);
+                    }
+                }
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,12 +295,103 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * {@link Stmt}s, the result is backed by arrays indexed by statements,
+     * which is more compact than the default map-based result.
+     */
+    @SuppressWarnings("unchecked")
+    protected DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>)
+                    new StmtDataflowResult<Fact>((CFG<Stmt>) cfg);
+        } else {
+            return new DataflowResult<>();
+        }
+    }
+
+    /**
+     * Creates the facts of the nodes of given CFG for forward analyses.
+     * Along straight-line code, i.e., if the only in-edge of a node is
+     * a {@link #isChainEdge chain edge}, the in fact of the node is the
+     * out fact of its predecessor itself instead of a new fact, as the
+     * meet over the only edge does not change the fact. Thus, the facts
+     * are copied only where the control flow branches or joins, and
+     * the facts in the result may be shared by adjacent nodes.
+     */
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        resetForward(cfg, result, cfg.getNodes());
     }
 
+    /**
+     * Replaces the facts of given nodes by new facts as
+     * {@link #initializeForward} does.
+     */
+    private void resetForward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                              Collection<Node> nodes) {
+        for (Node node : nodes) {
+            result.setOutFact(node, cfg.isEntry(node)
+                    ? analysis.newBoundaryFact(cfg)
+                    : analysis.newInitialFact(cfg));
+        }
+        for (Node node : nodes) {
+            if (!cfg.isEntry(node)) {
+                Edge<Node> inEdge = getOnlyEdge(cfg.getInEdgesOf(node));
+                result.setInFact(node, inEdge != null && isChainEdge(cfg, inEdge)
+                        ? result.getOutFact(inEdge.getSource())
+                        : analysis.newInitialFact(cfg));
+            }
+        }
+    }
+
+    /**
+     * Creates the facts of the nodes of given CFG for backward analyses.
+     * Similar to {@link #initializeForward}, the out fact of a node whose
+     * only out-edge is a chain edge is the in fact of its successor itself.
+     */
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        resetBackward(cfg, result, cfg.getNodes());
+    }
+
+    /**
+     * Replaces the facts of given nodes by new facts as
+     * {@link #initializeBackward} does.
+     */
+    private void resetBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                               Collection<Node> nodes) {
+        for (Node node : nodes) {
+            result.setInFact(node, cfg.isExit(node)
+                    ? analysis.newBoundaryFact(cfg)
+                    : analysis.newInitialFact(cfg));
+        }
+        for (Node node : nodes) {
+            if (!cfg.isExit(node)) {
+                Edge<Node> outEdge = getOnlyEdge(cfg.getOutEdgesOf(node));
+                result.setOutFact(node, outEdge != null && isChainEdge(cfg, outEdge)
+                        ? result.getInFact(outEdge.getTarget())
+                        : analysis.newInitialFact(cfg));
+            }
+        }
+    }
+
+    /**
+     * @return true if given edge is the only out-edge of its source and
+     * the only in-edge of its target, and does not need edge transfer.
+     * The source and the target of such edge can share the fact flowing
+     * through it.
+     */
+    private boolean isChainEdge(CFG<Node> cfg, Edge<Node> edge) {
+        Node source = edge.getSource();
+        Node target = edge.getTarget();
+        return !source.equals(target) &&
+                cfg.getOutDegreeOf(source) == 1 &&
+                cfg.getInDegreeOf(target) == 1 &&
+                !analysis.needTransferEdge(edge);
+    }
+
+    @Nullable
+    private static <Node> Edge<Node> getOnlyEdge(Set<Edge<Node>> edges) {
+        return edges.size() == 1 ? edges.iterator().next() : null;
     }
 
     /**
@@ -98,4 +408,162 @@ public abstract class Solver<Node, Fact> {
     protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
 
     protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+
+    /**
+     * @return true if this solver records statistics of solving.
+     * Solvers can check this before computing expensive statistics.
+     */
+    protected boolean collectsStats() {
+        return stats != null;
+    }
+
+    /**
+     * Records the current size of the work list, if this solver
+     * records statistics of solving.
+     */
+    protected void recordWorkListSize(int size) {
+        if (stats != null) {
+            stats.recordWorkListSize(size);
+        }
+    }
+
+    /**
+     * @return the {@link CompactCFG snapshot} of given CFG if it is a CFG
+     * of {@link Stmt}s, otherwise null. Solvers obtain the snapshot once
+     * for each solving, and pass it to {@link #update} and the meet
+     * methods, which then iterate over the neighbors of nodes without
+     * allocating any objects.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    protected static CompactCFG getCompactCFG(CFG<?> cfg) {
+        return cfg.getEntry() instanceof Stmt
+                ? CompactCFG.of((CFG<Stmt>) cfg) : null;
+    }
+
+    /**
+     * Meets the facts flowing into the given node and applies its
+     * transfer function. The boundary node is left unchanged.
+     *
+     * @param compact the snapshot of the CFG, see {@link #getCompactCFG}
+     * @return true if the fact flowing out of the node changed.
+     */
+    protected boolean update(CFG<Node> cfg, @Nullable CompactCFG compact,
+                             DataflowResult<Node, Fact> result, Node node) {
+        if (analysis.isForward()) {
+            if (cfg.isEntry(node)) {
+                return false;
+            }
+            meetPredecessors(cfg, compact, node, result);
+        } else {
+            if (cfg.isExit(node)) {
+                return false;
+            }
+            meetSuccessors(cfg, compact, node, result);
+        }
+        return analysis.transferNode(node,
+                result.getInFact(node), result.getOutFact(node));
+    }
+
+    /**
+     * Meets the out facts of the predecessors of given node into
+     * the in fact of the node, applying edge transfer when needed.
+     *
+     * @param compact the snapshot of the CFG, see {@link #getCompactCFG}
+     */
+    @SuppressWarnings("unchecked")
+    protected void meetPredecessors(CFG<Node> cfg, @Nullable CompactCFG compact,
+                                    Node node, DataflowResult<Node, Fact> result) {
+        if (compact != null) {
+            meetPredecessors(compact, compact.getIndex((Stmt) node),
+                    (DataflowResult<Stmt, Fact>) result);
+            return;
+        }
+        Fact in = result.getInFact(node);
+        for (Edge<Node> inEdge : cfg.getInEdgesOf(node)) {
+            Fact predOut = result.getOutFact(inEdge.getSource());
+            if (predOut == in) {
+                // the fact is shared along a chain edge
+                continue;
+            }
+            if (analysis.needTransferEdge(inEdge)) {
+                predOut = analysis.transferEdge(inEdge, predOut);
+            }
+            analysis.meetInto(predOut, in);
+        }
+    }
+
+    /**
+     * Meets the in facts of the successors of given node into
+     * the out fact of the node, applying edge transfer when needed.
+     *
+     * @param compact the snapshot of the CFG, see {@link #getCompactCFG}
+     */
+    @SuppressWarnings("unchecked")
+    protected void meetSuccessors(CFG<Node> cfg, @Nullable CompactCFG compact,
+                                  Node node, DataflowResult<Node, Fact> result) {
+        if (compact != null) {
+            meetSuccessors(compact, compact.getIndex((Stmt) node),
+                    (DataflowResult<Stmt, Fact>) result);
+            return;
+        }
+        Fact out = result.getOutFact(node);
+        for (Edge<Node> outEdge : cfg.getOutEdgesOf(node)) {
+            Fact succIn = result.getInFact(outEdge.getTarget());
+            if (succIn == out) {
+                // the fact is shared along a chain edge
+                continue;
+            }
+            if (analysis.needTransferEdge(outEdge)) {
+                succIn = analysis.transferEdge(outEdge, succIn);
+            }
+            analysis.meetInto(succIn, out);
+        }
+    }
+
+    /**
+     * Counterpart of {@link #meetPredecessors(CFG, CompactCFG, Object, DataflowResult)}
+     * for the node of given index in given snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    protected void meetPredecessors(CompactCFG cfg, int index,
+                                    DataflowResult<Stmt, Fact> result) {
+        DataflowAnalysis<Stmt, Fact> analysis = (DataflowAnalysis<Stmt, Fact>) this.analysis;
+        Fact in = result.getInFact(cfg.getNode(index));
+        for (int i = cfg.getPredBegin(index); i < cfg.getPredEnd(index); ++i) {
+            Fact predOut = result.getOutFact(cfg.getNode(cfg.getPred(i)));
+            if (predOut == in) {
+                // the fact is shared along a chain edge
+                continue;
+            }
+            Edge<Stmt> inEdge = cfg.getInEdge(i);
+            if (analysis.needTransferEdge(inEdge)) {
+                predOut = analysis.transferEdge(inEdge, predOut);
+            }
+            analysis.meetInto(predOut, in);
+        }
+    }
+
+    /**
+     * Counterpart of {@link #meetSuccessors(CFG, CompactCFG, Object, DataflowResult)}
+     * for the node of given index in given snapshot.
+     */
+    @SuppressWarnings("unchecked")
+    protected void meetSuccessors(CompactCFG cfg, int index,
+                                  DataflowResult<Stmt, Fact> result) {
+        DataflowAnalysis<Stmt, Fact> analysis = (DataflowAnalysis<Stmt, Fact>) this.analysis;
+        Fact out = result.getOutFact(cfg.getNode(index));
+        for (int i = cfg.getSuccBegin(index); i < cfg.getSuccEnd(index); ++i) {
+            Fact succIn = result.getInFact(cfg.getNode(cfg.getSucc(i)));
+            if (succIn == out) {
+                // the fact is shared along a chain edge
+                continue;
+            }
+            Edge<Stmt> outEdge = cfg.getOutEdge(i);
+            if (analysis.needTransferEdge(outEdge)) {
+                succIn = analysis.transferEdge(outEdge, succIn);
+            }
+            analysis.meetInto(succIn, out);
+        }
+    }
 }
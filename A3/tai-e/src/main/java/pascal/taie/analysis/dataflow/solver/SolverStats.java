@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Statistics of solving a data-flow problem on the CFG of a method,
+ * which is collected when the option {@code stats} of the analysis is
+ * true, and stored in the IR beside the data-flow result under the key
+ * given by {@link #getKey(String)}.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public class SolverStats<Node> {
+
+    private static final String KEY_SUFFIX = ".stats";
+
+    private final JMethod method;
+
+    private final Map<Node, Integer> iterations = Maps.newMap();
+
+    private long transferCount;
+
+    private long transferTime;
+
+    private long meetCount;
+
+    private long meetTime;
+
+    private int maxWorkListSize;
+
+    private long solveTime;
+
+    public SolverStats(JMethod method) {
+        this.method = method;
+    }
+
+    /**
+     * @return the key of the statistics of given analysis in the IR.
+     */
+    public static String getKey(String analysisId) {
+        return analysisId + KEY_SUFFIX;
+    }
+
+    /**
+     * @return the method whose CFG is solved.
+     */
+    public JMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the number of times that given node has been transferred.
+     */
+    public int getIterations(Node node) {
+        return iterations.getOrDefault(node, 0);
+    }
+
+    /**
+     * @return the numbers of times that the nodes have been transferred.
+     */
+    public Map<Node, Integer> getIterations() {
+        return Collections.unmodifiableMap(iterations);
+    }
+
+    /**
+     * @return the total number of calls to the transfer function of nodes.
+     */
+    public long getTransferCount() {
+        return transferCount;
+    }
+
+    /**
+     * @return the total time (in nanoseconds) spent in transfer functions.
+     */
+    public long getTransferTime() {
+        return transferTime;
+    }
+
+    /**
+     * @return the total number of calls to the meet operation.
+     */
+    public long getMeetCount() {
+        return meetCount;
+    }
+
+    /**
+     * @return the total time (in nanoseconds) spent in meet operations.
+     */
+    public long getMeetTime() {
+        return meetTime;
+    }
+
+    /**
+     * @return the maximum number of nodes in the work list during solving,
+     * or 0 if the solver does not use a work list.
+     */
+    public int getMaxWorkListSize() {
+        return maxWorkListSize;
+    }
+
+    /**
+     * @return the total time (in nanoseconds) spent in solving.
+     */
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+    void recordTransfer(Node node, long time) {
+        iterations.merge(node, 1, Integer::sum);
+        ++transferCount;
+        transferTime += time;
+    }
+
+    void recordMeet(long time) {
+        ++meetCount;
+        meetTime += time;
+    }
+
+    void recordWorkListSize(int size) {
+        maxWorkListSize = Math.max(maxWorkListSize, size);
+    }
+
+    void recordSolveTime(long time) {
+        solveTime += time;
+    }
+
+    @Override
+    public String toString() {
+        int maxIterations = iterations.values()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(0);
+        return String.format("%s: solve %.3fms, transfer %d calls/%.3fms," +
+                        " meet %d calls/%.3fms, max iterations %d," +
+                        " max work-list size %d",
+                method, solveTime / 1e6, transferCount, transferTime / 1e6,
+                meetCount, meetTime / 1e6, maxIterations, maxWorkListSize);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Component;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Cycle;
+import pascal.taie.analysis.graph.cfg.WeakTopologicalOrder.Vertex;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Solver which follows the recursive iteration strategy over
+ * {@link WeakTopologicalOrder} of the CFG: the components are processed
+ * in order, and each cycle is iterated until its head is stable, which
+ * stabilizes inner loops before the nodes after them are processed.
+ */
+class WTOSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WeakTopologicalOrder<Node> wto = WeakTopologicalOrder.forward(cfg);
+        solveComponents(cfg, getCompactCFG(cfg), result, wto.getComponents());
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WeakTopologicalOrder<Node> wto = WeakTopologicalOrder.backward(cfg);
+        solveComponents(cfg, getCompactCFG(cfg), result, wto.getComponents());
+    }
+
+    private void solveComponents(CFG<Node> cfg, @Nullable CompactCFG compact,
+                                 DataflowResult<Node, Fact> result,
+                                 List<Component<Node>> components) {
+        for (Component<Node> component : components) {
+            if (component instanceof Vertex<Node> vertex) {
+                update(cfg, compact, result, vertex.node());
+            } else {
+                stabilize(cfg, compact, result, (Cycle<Node>) component);
+            }
+        }
+    }
+
+    /**
+     * Solves the component by the same recursive iteration strategy.
+     */
+    @Override
+    protected void solveComponent(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Component<Node> component, List<Node> nodes) {
+        solveComponents(cfg, getCompactCFG(cfg), result, List.of(component));
+    }
+
+    /**
+     * Iterates the given cycle until it is stable, which is the case
+     * once an update of the head does not change it.
+     */
+    private void stabilize(CFG<Node> cfg, @Nullable CompactCFG compact,
+                           DataflowResult<Node, Fact> result, Cycle<Node> cycle) {
+        update(cfg, compact, result, cycle.head());
+        do {
+            solveComponents(cfg, compact, result, cycle.components());
+        } while (update(cfg, compact, result, cycle.head()));
+    }
+}
@@ -25,6 +25,11 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CompactCFG;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.Queue;
 
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
@@ -33,12 +38,161 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        if (cfg.getEntry() instanceof Stmt) {
+            doSolveForward(CompactCFG.of((CFG<Stmt>) cfg),
+                    (DataflowResult<Stmt, Fact>) result);
+            return;
+        }
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(cfg.getNodes());
+        recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (cfg.isEntry(node)) {
+                continue;
+            }
+            meetPredecessors(cfg, null, node, result);
+            if (analysis.transferNode(node,
+                    result.getInFact(node), result.getOutFact(node))) {
+                workList.addAll(cfg.getSuccsOf(node));
+                recordWorkListSize(workList.size());
+            }
+        }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
+        if (cfg.getEntry() instanceof Stmt) {
+            doSolveBackward(CompactCFG.of((CFG<Stmt>) cfg),
+                    (DataflowResult<Stmt, Fact>) result);
+            return;
+        }
+        Queue<Node> workList = new SetQueue<>();
+        workList.addAll(cfg.getNodes());
+        recordWorkListSize(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            if (cfg.isExit(node)) {
+                continue;
+            }
+            meetSuccessors(cfg, null, node, result);
+            if (analysis.transferNode(node,
+                    result.getInFact(node), result.getOutFact(node))) {
+                workList.addAll(cfg.getPredsOf(node));
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    /**
+     * Solves forward analyses on CFGs of {@link Stmt}s, using the
+     * {@link CompactCFG} of the CFG. It processes the nodes in the same
+     * order as the general algorithm, but the work list is a ring buffer
+     * of node indexes, so that solving does not allocate any objects
+     * except the ones allocated by the analysis.
+     */
+    @SuppressWarnings("unchecked")
+    private void doSolveForward(CompactCFG cfg, DataflowResult<Stmt, Fact> result) {
+        DataflowAnalysis<Stmt, Fact> analysis = (DataflowAnalysis<Stmt, Fact>) this.analysis;
+        IndexQueue workList = new IndexQueue(cfg);
+        recordWorkListSize(workList.size());
+        int entry = cfg.getEntryIndex();
+        while (!workList.isEmpty()) {
+            int index = workList.poll();
+            if (index == entry) {
+                continue;
+            }
+            meetPredecessors(cfg, index, result);
+            Stmt node = cfg.getNode(index);
+            if (analysis.transferNode(node,
+                    result.getInFact(node), result.getOutFact(node))) {
+                for (int i = cfg.getSuccBegin(index); i < cfg.getSuccEnd(index); ++i) {
+                    workList.add(cfg.getSucc(i));
+                }
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    /**
+     * Backward counterpart of {@link #doSolveForward(CompactCFG, DataflowResult)}.
+     */
+    @SuppressWarnings("unchecked")
+    private void doSolveBackward(CompactCFG cfg, DataflowResult<Stmt, Fact> result) {
+        DataflowAnalysis<Stmt, Fact> analysis = (DataflowAnalysis<Stmt, Fact>) this.analysis;
+        IndexQueue workList = new IndexQueue(cfg);
+        recordWorkListSize(workList.size());
+        int exit = cfg.getExitIndex();
+        while (!workList.isEmpty()) {
+            int index = workList.poll();
+            if (index == exit) {
+                continue;
+            }
+            meetSuccessors(cfg, index, result);
+            Stmt node = cfg.getNode(index);
+            if (analysis.transferNode(node,
+                    result.getInFact(node), result.getOutFact(node))) {
+                for (int i = cfg.getPredBegin(index); i < cfg.getPredEnd(index); ++i) {
+                    workList.add(cfg.getPred(i));
+                }
+                recordWorkListSize(workList.size());
+            }
+        }
+    }
+
+    /**
+     * FIFO queue of node indexes without duplicates, which is initialized
+     * with all nodes of a CFG in the iteration order of the CFG.
+     * As each node is in the queue at most once, a ring buffer of
+     * the size of the CFG suffices.
+     */
+    private static final class IndexQueue {
+
+        private final int[] elements;
+
+        private final boolean[] contained;
+
+        private int head;
+
+        private int size;
+
+        private IndexQueue(CompactCFG cfg) {
+            int capacity = cfg.getNumberOfNodes();
+            elements = new int[capacity];
+            contained = new boolean[capacity];
+            for (Stmt node : cfg.getCFG()) {
+                add(cfg.getIndex(node));
+            }
+        }
+
+        private void add(int index) {
+            if (!contained[index]) {
+                contained[index] = true;
+                int tail = head + size;
+                elements[tail < elements.length ? tail : tail - elements.length] = index;
+                ++size;
+            }
+        }
+
+        private int poll() {
+            int index = elements[head];
+            contained[index] = false;
+            if (++head == elements.length) {
+                head = 0;
+            }
+            --size;
+            return index;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int size() {
+            return size;
+        }
     }
 }
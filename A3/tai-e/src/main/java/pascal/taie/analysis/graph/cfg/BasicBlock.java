@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents a basic block of a {@link CFG}, i.e., a maximal sequence of
+ * nodes where control enters at the first node and leaves at the last node.
+ * The entry and exit of a CFG always form single-node blocks.
+ *
+ * @param <N> type of CFG nodes
+ * @see BasicBlockGraph
+ */
+public final class BasicBlock<N> {
+
+    private final int index;
+
+    private final List<N> nodes;
+
+    private final Set<BasicBlock<N>> preds = Sets.newHybridOrderedSet();
+
+    private final Set<BasicBlock<N>> succs = Sets.newHybridOrderedSet();
+
+    BasicBlock(int index, List<N> nodes) {
+        this.index = index;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    /**
+     * @return the index of this block in its {@link BasicBlockGraph}.
+     * The indexes of the blocks in a graph are 0, 1, ..., n-1,
+     * where n is the number of blocks.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the nodes of this block in control-flow order.
+     */
+    public List<N> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the first node of this block.
+     */
+    public N getFirst() {
+        return nodes.get(0);
+    }
+
+    /**
+     * @return the last node of this block.
+     */
+    public N getLast() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    /**
+     * @return the number of nodes in this block.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    Set<BasicBlock<N>> getPreds() {
+        return Collections.unmodifiableSet(preds);
+    }
+
+    Set<BasicBlock<N>> getSuccs() {
+        return Collections.unmodifiableSet(succs);
+    }
+
+    void addEdge(BasicBlock<N> succ) {
+        succs.add(succ);
+        succ.preds.add(this);
+    }
+
+    @Override
+    public String toString() {
+        return size() == 1 ? "B" + index + "[" + getFirst() + "]"
+                : "B" + index + "[" + getFirst() + ".." + getLast() + "]";
+    }
+}
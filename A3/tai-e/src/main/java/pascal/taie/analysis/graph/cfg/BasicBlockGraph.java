@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Basic-block view of a {@link CFG}, which groups the straight-line
+ * sequences of CFG nodes into {@link BasicBlock}s. A node starts a new
+ * block if it is the entry or the exit, or it does not have exactly one
+ * predecessor, or its only predecessor does not have exactly one successor.
+ *
+ * @param <N> type of CFG nodes
+ */
+public class BasicBlockGraph<N> implements Graph<BasicBlock<N>> {
+
+    private final CFG<N> cfg;
+
+    private final List<BasicBlock<N>> blocks = new ArrayList<>();
+
+    private final Map<N, BasicBlock<N>> blockOf;
+
+    private final BasicBlock<N> entry;
+
+    private final BasicBlock<N> exit;
+
+    public BasicBlockGraph(CFG<N> cfg) {
+        this.cfg = cfg;
+        this.blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        for (N node : cfg) {
+            if (isLeader(node)) {
+                buildBlock(node);
+            }
+        }
+        // the remaining nodes form cycles without leaders,
+        // which are unreachable from the entry
+        for (N node : cfg) {
+            if (!blockOf.containsKey(node)) {
+                buildBlock(node);
+            }
+        }
+        for (BasicBlock<N> block : blocks) {
+            for (Edge<N> edge : cfg.getOutEdgesOf(block.getLast())) {
+                block.addEdge(blockOf.get(edge.getTarget()));
+            }
+        }
+        this.entry = blockOf.get(cfg.getEntry());
+        this.exit = blockOf.get(cfg.getExit());
+    }
+
+    private boolean isLeader(N node) {
+        if (cfg.isEntry(node) || cfg.isExit(node) ||
+                cfg.getInDegreeOf(node) != 1) {
+            return true;
+        }
+        N pred = cfg.getInEdgesOf(node).iterator().next().getSource();
+        return pred == node || cfg.isEntry(pred) ||
+                cfg.getOutDegreeOf(pred) != 1;
+    }
+
+    private void buildBlock(N leader) {
+        List<N> nodes = new ArrayList<>();
+        N node = leader;
+        while (true) {
+            nodes.add(node);
+            if (cfg.isExit(node) || cfg.getOutDegreeOf(node) != 1) {
+                break;
+            }
+            N succ = cfg.getOutEdgesOf(node).iterator().next().getTarget();
+            if (succ == leader || isLeader(succ)) {
+                break;
+            }
+            node = succ;
+        }
+        BasicBlock<N> block = new BasicBlock<>(blocks.size(), nodes);
+        blocks.add(block);
+        nodes.forEach(n -> blockOf.put(n, block));
+    }
+
+    /**
+     * @return the CFG which this graph is built from.
+     */
+    public CFG<N> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the block containing the entry of the CFG.
+     */
+    public BasicBlock<N> getEntry() {
+        return entry;
+    }
+
+    /**
+     * @return the block containing the exit of the CFG.
+     */
+    public BasicBlock<N> getExit() {
+        return exit;
+    }
+
+    /**
+     * @return the block containing given CFG node.
+     */
+    public BasicBlock<N> getBlockOf(N node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the block of given index.
+     */
+    public BasicBlock<N> getBlock(int index) {
+        return blocks.get(index);
+    }
+
+    /**
+     * @return all blocks in this graph, ordered by their indexes.
+     */
+    public List<BasicBlock<N>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    @Override
+    public boolean hasNode(BasicBlock<N> block) {
+        int index = block.getIndex();
+        return index < blocks.size() && blocks.get(index) == block;
+    }
+
+    @Override
+    public boolean hasEdge(BasicBlock<N> source, BasicBlock<N> target) {
+        return source.getSuccs().contains(target);
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getPredsOf(BasicBlock<N> block) {
+        return block.getPreds();
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getSuccsOf(BasicBlock<N> block) {
+        return block.getSuccs();
+    }
+
+    @Override
+    public Set<BasicBlock<N>> getNodes() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(blocks));
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        return blocks.size();
+    }
+}
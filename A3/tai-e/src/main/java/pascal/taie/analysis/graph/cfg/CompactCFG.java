@@ -0,0 +1,251 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * Immutable snapshot of a {@link CFG} of {@link Stmt}s in compressed
+ * sparse row (CSR) form, which allows iterating over the neighbors of
+ * nodes without allocating any objects.
+ * <p>
+ * Nodes are identified by indexes: the index of a statement is
+ * {@link Stmt#getIndex()}, and the entry and the exit of the CFG,
+ * which are not statements of the IR, are indexed by n and n+1,
+ * where n is the number of statements. The successors of node i are
+ * stored in positions [{@link #getSuccBegin(int) getSuccBegin(i)},
+ * {@link #getSuccEnd(int) getSuccEnd(i)}) of a flat array, along with
+ * the kinds and the objects of the corresponding edges; so are
+ * the predecessors.
+ * <p>
+ * A snapshot is built once for each IR, see {@link #of(CFG)}. All solvers
+ * meet the facts of statement CFGs through the snapshot, and the work-list
+ * solver also keeps its work list as node indexes. The block-based
+ * solvers still iterate within blocks via the edge sets of the CFG.
+ */
+public final class CompactCFG {
+
+    /**
+     * Key of the snapshot in the results of {@link IR}.
+     */
+    private static final String KEY = "compact-cfg";
+
+    private static final Edge.Kind[] KINDS = Edge.Kind.values();
+
+    private final CFG<Stmt> cfg;
+
+    private final Stmt[] nodes;
+
+    private final int[] succOffsets;
+
+    private final int[] succs;
+
+    private final byte[] succKinds;
+
+    private final Edge<?>[] outEdges;
+
+    private final int[] predOffsets;
+
+    private final int[] preds;
+
+    private final byte[] predKinds;
+
+    private final Edge<?>[] inEdges;
+
+    private CompactCFG(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        int size = cfg.getIR().getStmts().size() + 2;
+        nodes = new Stmt[size];
+        int edgeCount = 0;
+        for (Stmt node : cfg) {
+            nodes[getIndex(node)] = node;
+            edgeCount += cfg.getOutEdgesOf(node).size();
+        }
+        succOffsets = new int[size + 1];
+        succs = new int[edgeCount];
+        succKinds = new byte[edgeCount];
+        outEdges = new Edge<?>[edgeCount];
+        predOffsets = new int[size + 1];
+        preds = new int[edgeCount];
+        predKinds = new byte[edgeCount];
+        inEdges = new Edge<?>[edgeCount];
+        int succPos = 0;
+        int predPos = 0;
+        for (int i = 0; i < size; ++i) {
+            succOffsets[i] = succPos;
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(nodes[i])) {
+                succs[succPos] = getIndex(edge.getTarget());
+                succKinds[succPos] = (byte) edge.getKind().ordinal();
+                outEdges[succPos++] = edge;
+            }
+            predOffsets[i] = predPos;
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(nodes[i])) {
+                preds[predPos] = getIndex(edge.getSource());
+                predKinds[predPos] = (byte) edge.getKind().ordinal();
+                inEdges[predPos++] = edge;
+            }
+        }
+        succOffsets[size] = succPos;
+        predOffsets[size] = predPos;
+    }
+
+    /**
+     * @return the snapshot of given CFG. The snapshot is built on the
+     * first call for the CFG of an IR, and is stored in the IR, so that
+     * subsequent calls return the same snapshot.
+     */
+    public static CompactCFG of(CFG<Stmt> cfg) {
+        IR ir = cfg.getIR();
+        synchronized (ir) {
+            CompactCFG compact = ir.getResult(KEY);
+            if (compact == null || compact.cfg != cfg) {
+                compact = new CompactCFG(cfg);
+                ir.storeResult(KEY, compact);
+            }
+            return compact;
+        }
+    }
+
+    /**
+     * @return the CFG of this snapshot.
+     */
+    public CFG<Stmt> getCFG() {
+        return cfg;
+    }
+
+    /**
+     * @return the number of nodes, i.e., the number of statements plus 2.
+     */
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the index of given node.
+     */
+    public int getIndex(Stmt node) {
+        if (cfg.isEntry(node)) {
+            return nodes.length - 2;
+        } else if (cfg.isExit(node)) {
+            return nodes.length - 1;
+        } else {
+            return node.getIndex();
+        }
+    }
+
+    /**
+     * @return the node of given index.
+     */
+    public Stmt getNode(int index) {
+        return nodes[index];
+    }
+
+    public int getEntryIndex() {
+        return nodes.length - 2;
+    }
+
+    public int getExitIndex() {
+        return nodes.length - 1;
+    }
+
+    /**
+     * @return the first position of the successors of given node.
+     */
+    public int getSuccBegin(int index) {
+        return succOffsets[index];
+    }
+
+    /**
+     * @return the position after the last successor of given node.
+     */
+    public int getSuccEnd(int index) {
+        return succOffsets[index + 1];
+    }
+
+    /**
+     * @return the index of the successor at given position.
+     */
+    public int getSucc(int pos) {
+        return succs[pos];
+    }
+
+    /**
+     * @return the kind of the out-edge at given position.
+     */
+    public Edge.Kind getSuccKind(int pos) {
+        return KINDS[succKinds[pos]];
+    }
+
+    /**
+     * @return the out-edge at given position.
+     */
+    @SuppressWarnings("unchecked")
+    public Edge<Stmt> getOutEdge(int pos) {
+        return (Edge<Stmt>) outEdges[pos];
+    }
+
+    public int getOutDegree(int index) {
+        return succOffsets[index + 1] - succOffsets[index];
+    }
+
+    /**
+     * @return the first position of the predecessors of given node.
+     */
+    public int getPredBegin(int index) {
+        return predOffsets[index];
+    }
+
+    /**
+     * @return the position after the last predecessor of given node.
+     */
+    public int getPredEnd(int index) {
+        return predOffsets[index + 1];
+    }
+
+    /**
+     * @return the index of the predecessor at given position.
+     */
+    public int getPred(int pos) {
+        return preds[pos];
+    }
+
+    /**
+     * @return the kind of the in-edge at given position.
+     */
+    public Edge.Kind getPredKind(int pos) {
+        return KINDS[predKinds[pos]];
+    }
+
+    /**
+     * @return the in-edge at given position.
+     */
+    @SuppressWarnings("unchecked")
+    public Edge<Stmt> getInEdge(int pos) {
+        return (Edge<Stmt>) inEdges[pos];
+    }
+
+    public int getInDegree(int index) {
+        return predOffsets[index + 1] - predOffsets[index];
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.Graph;
+import pascal.taie.util.graph.ReverseGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Weak topological ordering (WTO) of the nodes of a graph, as proposed in
+ * François Bourdoncle, "Efficient chaotic iteration strategies with
+ * widenings", FMPA 1993.
+ * <p>
+ * A WTO is a hierarchical ordering of the nodes, where each strongly
+ * connected component is represented as a {@link Cycle} with a designated
+ * head, and the nodes inside a cycle are again ordered recursively.
+ * Every cycle in the graph passes through the head of some {@link Cycle},
+ * thus heads are the places where iteration needs to be repeated
+ * (and where widening could be applied).
+ *
+ * @param <N> type of nodes
+ */
+public class WeakTopologicalOrder<N> {
+
+    /**
+     * An element of a WTO, either a single node or a cycle.
+     */
+    public sealed interface Component<N> permits Vertex, Cycle {
+    }
+
+    /**
+     * A node which is not the head of any cycle.
+     */
+    public record Vertex<N>(N node) implements Component<N> {
+
+        @Override
+        public String toString() {
+            return String.valueOf(node);
+        }
+    }
+
+    /**
+     * A strongly connected component, whose nodes except head are
+     * ordered recursively in components.
+     */
+    public record Cycle<N>(N head, List<Component<N>> components)
+            implements Component<N> {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("(").append(head);
+            components.forEach(c -> sb.append(' ').append(c));
+            return sb.append(')').toString();
+        }
+    }
+
+    private final List<Component<N>> components;
+
+    private final Set<N> heads = Sets.newHybridSet();
+
+    /**
+     * Computes WTO of the nodes in given graph. The traversal starts at
+     * root, and then continues at the nodes unreachable from root
+     * (in the iteration order of the graph), so that every node
+     * in the graph is included. The nodes visited by a later traversal
+     * may have edges to the ones visited by earlier traversals, but not
+     * vice versa, thus the components of later traversals are ordered
+     * first, and the components of root are the last ones.
+     */
+    public WeakTopologicalOrder(Graph<N> graph, N root) {
+        components = new Builder<>(graph).build(root);
+        collectHeads(components);
+    }
+
+    /**
+     * @return the WTO of given CFG for forward analyses,
+     * i.e., the WTO of the CFG starting at the entry.
+     */
+    public static <N> WeakTopologicalOrder<N> forward(CFG<N> cfg) {
+        return new WeakTopologicalOrder<>(cfg, cfg.getEntry());
+    }
+
+    /**
+     * @return the WTO of given CFG for backward analyses,
+     * i.e., the WTO of the reversed CFG starting at the exit.
+     */
+    public static <N> WeakTopologicalOrder<N> backward(CFG<N> cfg) {
+        return new WeakTopologicalOrder<>(new ReverseGraph<>(cfg), cfg.getExit());
+    }
+
+    /**
+     * @return the top-level components of this WTO.
+     */
+    public List<Component<N>> getComponents() {
+        return components;
+    }
+
+    /**
+     * @return true if given node is the head of a cycle, otherwise false.
+     */
+    public boolean isHead(N node) {
+        return heads.contains(node);
+    }
+
+    /**
+     * @return the heads of all cycles in this WTO.
+     */
+    public Set<N> getHeads() {
+        return Collections.unmodifiableSet(heads);
+    }
+
+    private void collectHeads(List<Component<N>> components) {
+        for (Component<N> component : components) {
+            if (component instanceof Cycle<N> cycle) {
+                heads.add(cycle.head());
+                collectHeads(cycle.components());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        components.forEach(c -> sb.append(c).append(' '));
+        return sb.toString().stripTrailing();
+    }
+
+    /**
+     * Builds WTO by Bourdoncle's algorithm. The mutually recursive
+     * procedures visit() and component() of the original algorithm
+     * are simulated with an explicit stack of frames, so that deep
+     * CFGs of large methods do not overflow the call stack.
+     */
+    private static class Builder<N> {
+
+        /**
+         * DFN of nodes that have been completely processed.
+         */
+        private static final int INFINITY = Integer.MAX_VALUE;
+
+        private final Graph<N> graph;
+
+        /**
+         * Depth-first numbers of nodes, absence means 0 (unvisited).
+         */
+        private final Map<N, Integer> dfn;
+
+        private final Deque<N> stack = new ArrayDeque<>();
+
+        private final Deque<Frame<N>> frames = new ArrayDeque<>();
+
+        private int num = 0;
+
+        /**
+         * Value returned by the most recently finished frame.
+         */
+        private int returned;
+
+        private Builder(Graph<N> graph) {
+            this.graph = graph;
+            this.dfn = Maps.newMap(graph.getNumberOfNodes());
+        }
+
+        private List<Component<N>> build(N root) {
+            Deque<Deque<Component<N>>> partitions = new ArrayDeque<>();
+            partitions.push(partition(root));
+            for (N node : graph) {
+                if (getDFN(node) == 0) {
+                    partitions.push(partition(node));
+                }
+            }
+            List<Component<N>> result = new ArrayList<>();
+            partitions.forEach(result::addAll);
+            return Collections.unmodifiableList(result);
+        }
+
+        private Deque<Component<N>> partition(N root) {
+            Deque<Component<N>> partition = new ArrayDeque<>();
+            frames.push(new Frame<>(true, root, partition));
+            while (!frames.isEmpty()) {
+                Frame<N> frame = frames.peek();
+                if (frame.isVisit) {
+                    stepVisit(frame);
+                } else {
+                    stepComponent(frame);
+                }
+            }
+            return partition;
+        }
+
+        private int getDFN(N node) {
+            return dfn.getOrDefault(node, 0);
+        }
+
+        /**
+         * Performs one step of visit(frame.node, frame.partition).
+         */
+        private void stepVisit(Frame<N> frame) {
+            N v = frame.node;
+            if (frame.succs == null) { // start visiting v
+                stack.push(v);
+                dfn.put(v, ++num);
+                frame.head = num;
+                frame.succs = graph.getSuccsOf(v).iterator();
+            } else if (frame.awaiting) { // returned from visit(w)
+                frame.awaiting = false;
+                updateHead(frame, returned);
+            }
+            while (frame.succs.hasNext()) {
+                N w = frame.succs.next();
+                int dfnW = getDFN(w);
+                if (dfnW == 0) {
+                    frame.awaiting = true;
+                    frames.push(new Frame<>(true, w, frame.partition));
+                    return;
+                }
+                updateHead(frame, dfnW);
+            }
+            // all successors have been visited
+            frames.pop();
+            returned = frame.head;
+            if (frame.head == getDFN(v)) {
+                dfn.put(v, INFINITY);
+                N element = stack.pop();
+                if (frame.loop) {
+                    while (!element.equals(v)) {
+                        dfn.remove(element);
+                        element = stack.pop();
+                    }
+                    // continue with component(v); it returns
+                    // the head of v to the caller of visit(v)
+                    Frame<N> component = new Frame<>(false, v, frame.partition);
+                    component.head = frame.head;
+                    component.succs = graph.getSuccsOf(v).iterator();
+                    frames.push(component);
+                } else {
+                    frame.partition.addFirst(new Vertex<>(v));
+                }
+            }
+        }
+
+        private static <N> void updateHead(Frame<N> frame, int min) {
+            if (min <= frame.head) {
+                frame.head = min;
+                frame.loop = true;
+            }
+        }
+
+        /**
+         * Performs one step of component(frame.node), whose result
+         * is prepended to frame.partition.
+         */
+        private void stepComponent(Frame<N> frame) {
+            while (frame.succs.hasNext()) {
+                N w = frame.succs.next();
+                if (getDFN(w) == 0) {
+                    frames.push(new Frame<>(true, w, frame.body));
+                    return;
+                }
+            }
+            frames.pop();
+            returned = frame.head;
+            frame.partition.addFirst(new Cycle<>(frame.node,
+                    Collections.unmodifiableList(new ArrayList<>(frame.body))));
+        }
+    }
+
+    /**
+     * Activation record of visit() or component().
+     */
+    private static class Frame<N> {
+
+        private final boolean isVisit;
+
+        private final N node;
+
+        /**
+         * The partition where the result of this frame is prepended to.
+         */
+        private final Deque<Component<N>> partition;
+
+        /**
+         * For component frames, the partition of the nodes in the cycle.
+         */
+        private final Deque<Component<N>> body;
+
+        private Iterator<N> succs;
+
+        private int head;
+
+        private boolean loop;
+
+        /**
+         * Whether this frame is waiting for the result of a callee visit().
+         */
+        private boolean awaiting;
+
+        private Frame(boolean isVisit, N node, Deque<Component<N>> partition) {
+            this.isVisit = isVisit;
+            this.node = node;
+            this.partition = partition;
+            this.body = isVisit ? null : new ArrayDeque<>();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Persistent map whose keys are {@link Indexable} objects with dense
+ * indexes, e.g., the variables of a method.
+ * <p>
+ * The mappings are stored in a trie of 32-way nodes indexed by the bits of
+ * {@link Indexable#getIndex()}. {@link #copy()} takes O(1) time: the copy
+ * shares the whole trie with this map, and afterwards each of them lazily
+ * copies the nodes on the path to the slot it modifies (path copying), so
+ * an update takes O(log<sub>32</sub> n) time. Each map owns the nodes that
+ * it has copied, and modifies them in place until the next {@link #copy()}.
+ * <p>
+ * This map does not permit null keys or null values, and
+ * is not thread-safe.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentIndexMap<K extends Indexable, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int WIDTH = 1 << BITS;
+
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * Root of the trie, null if this map is empty.
+     */
+    private Node root;
+
+    /**
+     * Shift of the index bits for the root; 0 means that the root is a leaf.
+     */
+    private int shift;
+
+    private int size;
+
+    /**
+     * Identifies the nodes which can be modified in place by this map.
+     */
+    private Object owner = new Object();
+
+    public PersistentIndexMap() {
+    }
+
+    private PersistentIndexMap(PersistentIndexMap<K, V> other) {
+        this.root = other.root;
+        this.shift = other.shift;
+        this.size = other.size;
+    }
+
+    /**
+     * Creates and returns a copy of this map in O(1) time.
+     */
+    public PersistentIndexMap<K, V> copy() {
+        // from now on, the trie is shared by both maps,
+        // so neither of them can modify existing nodes in place
+        owner = new Object();
+        return new PersistentIndexMap<>(this);
+    }
+
+    /**
+     * Replaces the mappings of this map with the ones of other map
+     * in O(1) time. Afterwards, the two maps share their trie as if
+     * this map were a {@link #copy()} of other map.
+     */
+    public void setTo(PersistentIndexMap<K, V> other) {
+        if (other == this) {
+            return;
+        }
+        other.owner = new Object();
+        owner = new Object();
+        root = other.root;
+        shift = other.shift;
+        size = other.size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (!(key instanceof Indexable indexable)) {
+            return null;
+        }
+        int index = indexable.getIndex();
+        if (root == null || index >>> shift >= WIDTH) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            node = (Node) node.slots[(index >>> s) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node.slots[2 * (index & MASK) + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(value, "PersistentIndexMap does not permit null values");
+        int index = key.getIndex();
+        if (root == null) {
+            root = newLeaf();
+            shift = 0;
+        }
+        while (index >>> shift >= WIDTH) { // grow the trie
+            Node newRoot = new Node(owner, WIDTH);
+            newRoot.slots[0] = root;
+            root = newRoot;
+            shift += BITS;
+        }
+        root = editable(root);
+        Node node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            int i = (index >>> s) & MASK;
+            Node child = (Node) node.slots[i];
+            child = child == null ? (s == BITS ? newLeaf() : new Node(owner, WIDTH))
+                    : editable(child);
+            node.slots[i] = child;
+            node = child;
+        }
+        int i = 2 * (index & MASK);
+        V oldValue = (V) node.slots[i + 1];
+        node.slots[i] = key;
+        node.slots[i + 1] = value;
+        if (oldValue == null) {
+            ++size;
+        }
+        return oldValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (get(key) == null) {
+            return null;
+        }
+        int index = ((Indexable) key).getIndex();
+        root = editable(root);
+        Node node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            int i = (index >>> s) & MASK;
+            Node child = editable((Node) node.slots[i]);
+            node.slots[i] = child;
+            node = child;
+        }
+        int i = 2 * (index & MASK);
+        V oldValue = (V) node.slots[i + 1];
+        node.slots[i] = null;
+        node.slots[i + 1] = null;
+        --size;
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        shift = 0;
+        size = 0;
+    }
+
+    private Node newLeaf() {
+        // a leaf stores key and value of each slot in adjacent positions
+        return new Node(owner, 2 * WIDTH);
+    }
+
+    /**
+     * @return the given node if it is owned by this map,
+     * otherwise a copy of the node owned by this map.
+     */
+    private Node editable(Node node) {
+        return node.owner == owner ? node : new Node(owner, node.slots.clone());
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PersistentIndexMap<?, ?> that
+                && shift == that.shift) {
+            // compare the tries, skipping the subtries shared by both maps
+            return size == that.size && equals(root, that.root, shift);
+        }
+        return super.equals(o);
+    }
+
+    private static boolean equals(Node n1, Node n2, int shift) {
+        if (n1 == n2) {
+            return true;
+        }
+        if (shift == 0) { // leaves
+            for (int i = 0; i < 2 * WIDTH; i += 2) {
+                Object v1 = n1 == null ? null : n1.slots[i + 1];
+                Object v2 = n2 == null ? null : n2.slots[i + 1];
+                if (!Objects.equals(v1, v2)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < WIDTH; ++i) {
+            Node c1 = n1 == null ? null : (Node) n1.slots[i];
+            Node c2 = n2 == null ? null : (Node) n2.slots[i];
+            if (!equals(c1, c2, shift - BITS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // computed as specified by Map.hashCode(), independent
+        // of the hash code of the entry objects
+        int h = 0;
+        for (Entry<K, V> e : entrySet()) {
+            h += e.getKey().hashCode() ^ e.getValue().hashCode();
+        }
+        return h;
+    }
+
+    private static final class Node {
+
+        private final Object owner;
+
+        /**
+         * Children of an inner node, or keys and values of a leaf.
+         */
+        private final Object[] slots;
+
+        private Node(Object owner, int width) {
+            this(owner, new Object[width]);
+        }
+
+        private Node(Object owner, Object[] slots) {
+            this.owner = owner;
+            this.slots = slots;
+        }
+    }
+
+    /**
+     * Iterates the entries in ascending order of key indexes.
+     * <p>
+     * {@link #remove()} is supported. Removing an entry modifies only
+     * the slot of the entry, which the iterator has passed, or copies
+     * the path to the slot, in which case the iterator continues on
+     * the original nodes, whose remaining slots are unchanged.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        /**
+         * Path from the root to the current leaf, and the position
+         * of the next slot to visit in each node on the path.
+         */
+        private final Deque<Node> nodes = new ArrayDeque<>();
+
+        private final Deque<Integer> positions = new ArrayDeque<>();
+
+        private Entry<K, V> next;
+
+        /**
+         * The entry returned by the last call of {@link #next()},
+         * or null if it has been removed.
+         */
+        private Entry<K, V> last;
+
+        private EntryIterator() {
+            if (root != null) {
+                nodes.push(root);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int pos = positions.pop();
+                boolean isLeaf = nodes.size() == shift / BITS + 1;
+                if (isLeaf) {
+                    while (pos < 2 * WIDTH && node.slots[pos] == null) {
+                        pos += 2;
+                    }
+                    if (pos < 2 * WIDTH) {
+                        positions.push(pos + 2);
+                        next = new ImmutableMapEntry<>(
+                                (K) node.slots[pos], (V) node.slots[pos + 1]);
+                        return;
+                    }
+                    nodes.pop();
+                } else {
+                    while (pos < WIDTH && node.slots[pos] == null) {
+                        ++pos;
+                    }
+                    if (pos < WIDTH) {
+                        positions.push(pos + 1);
+                        nodes.push((Node) node.slots[pos]);
+                        positions.push(0);
+                    } else {
+                        nodes.pop();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            PersistentIndexMap.this.remove(last.getKey());
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs constant propagation, live variable analysis and dead code
+ * detection through {@link MethodAnalysisDriver} on the test cases
+ * of the data-flow analyses, and compares the stored results with
+ * the ones of running the analyses sequentially.
+ */
+public class MethodAnalysisDriverTest {
+
+    private static final String DEADCODE_CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final String CONSTPROP_CLASS_PATH = "src/test/resources/dataflow/constprop/";
+
+    private static final List<String> DEADCODE_CLASSES = List.of(
+            "ControlFlowUnreachable", "DeadAssignment", "Loops",
+            "StoreField", "UnreachableIfBranch", "UnreachableSwitchBranch");
+
+    private static final List<String> IDS = List.of(ConstantPropagation.ID,
+            LiveVariableAnalysis.ID, DeadCodeDetection.ID);
+
+    private static List<MethodAnalysis> newAnalyses() {
+        return List.of(
+                new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID)),
+                new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID)),
+                new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID)));
+    }
+
+    /**
+     * @return IRs of the methods analyzed by
+     * {@link MethodAnalysisDriver#analyzeApplicationMethods}.
+     */
+    private static List<IR> getApplicationIRs() {
+        return World.get()
+                .getClassHierarchy()
+                .applicationClasses()
+                .map(JClass::getDeclaredMethods)
+                .flatMap(Collection::stream)
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .sorted(Comparator.comparing(JMethod::getSignature))
+                .map(JMethod::getIR)
+                .toList();
+    }
+
+    /**
+     * @return the results of analyses stored in given IRs, where the
+     * i-th element holds the results of the i-th IR in order of {@link #IDS}.
+     */
+    private static List<List<Object>> getResults(List<IR> irs) {
+        List<List<Object>> results = new ArrayList<>();
+        for (IR ir : irs) {
+            List<Object> irResults = new ArrayList<>();
+            for (String id : IDS) {
+                irResults.add(ir.getResult(id));
+            }
+            results.add(irResults);
+        }
+        return results;
+    }
+
+    private static void test(String classPath, String main) {
+        Main.main(new String[]{"-pp", "-cp", classPath, "-m", main,
+                "-a", CFGBuilder.ID});
+        List<IR> irs = getApplicationIRs();
+        Assert.assertFalse(irs.isEmpty());
+        List<MethodAnalysis> analyses = newAnalyses();
+        for (IR ir : irs) {
+            for (MethodAnalysis analysis : analyses) {
+                ir.storeResult(analysis.getId(), analysis.analyze(ir));
+            }
+        }
+        List<List<Object>> expected = getResults(irs);
+        testDriver(irs, expected, "owned pool",
+                () -> new MethodAnalysisDriver(4));
+        testDriver(irs, expected, "common pool", MethodAnalysisDriver::new);
+    }
+
+    private static void testDriver(List<IR> irs, List<List<Object>> expected,
+                                   String name, Supplier<MethodAnalysisDriver> driver) {
+        try (MethodAnalysisDriver d = driver.get()) {
+            d.analyzeApplicationMethods(newAnalyses());
+        }
+        List<List<Object>> actual = getResults(irs);
+        for (int i = 0; i < irs.size(); ++i) {
+            IR ir = irs.get(i);
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            for (int j = 0; j < IDS.size(); ++j) {
+                String message = name + ": " + IDS.get(j) + " of " + ir.getMethod();
+                Object exp = expected.get(i).get(j);
+                Object act = actual.get(i).get(j);
+                Assert.assertNotSame(message, exp, act);
+                if (exp instanceof DataflowResult<?, ?>) {
+                    assertSameFacts(message, cfg, exp, act);
+                } else {
+                    Assert.assertEquals(message, exp, act);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertSameFacts(String message, CFG<Stmt> cfg,
+                                        Object expected, Object actual) {
+        DataflowResult<Stmt, ?> expectedResult = (DataflowResult<Stmt, ?>) expected;
+        DataflowResult<Stmt, ?> actualResult = (DataflowResult<Stmt, ?>) actual;
+        for (Stmt node : cfg) {
+            Assert.assertEquals(message + " at " + node,
+                    expectedResult.getInFact(node), actualResult.getInFact(node));
+            Assert.assertEquals(message + " at " + node,
+                    expectedResult.getOutFact(node), actualResult.getOutFact(node));
+        }
+    }
+
+    @Test
+    public void testDeadCodeCases() {
+        for (String main : DEADCODE_CLASSES) {
+            test(DEADCODE_CLASS_PATH, main);
+        }
+    }
+
+    @Test
+    public void testConstPropCases() {
+        test(CONSTPROP_CLASS_PATH, "SparseConstants");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ComparisonExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.NullType;
+import pascal.taie.language.type.PrimitiveType;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the evaluation of expressions, which does not require
+ * any IR to be built.
+ */
+public class ConstantPropagationTest {
+
+    private final Var i1 = new Var(null, "i1", PrimitiveType.INT, 0);
+
+    private final Var i2 = new Var(null, "i2", PrimitiveType.INT, 1);
+
+    private final Var l1 = new Var(null, "l1", PrimitiveType.LONG, 2);
+
+    private final Var l2 = new Var(null, "l2", PrimitiveType.LONG, 3);
+
+    private final Var r1 = new Var(null, "r1", NullType.NULL, 4);
+
+    private final Var r2 = new Var(null, "r2", NullType.NULL, 5);
+
+    private CPFact newFact() {
+        CPFact fact = new CPFact();
+        fact.update(i1, Value.makeConstant(1));
+        fact.update(i2, Value.makeConstant(2));
+        return fact;
+    }
+
+    @Test
+    public void testIntOperands() {
+        CPFact fact = newFact();
+        assertEquals(Value.makeConstant(3), ConstantPropagation.evaluate(
+                new ArithmeticExp(ArithmeticExp.Op.ADD, i1, i2), fact));
+        assertEquals(Value.makeConstant(0), ConstantPropagation.evaluate(
+                new ConditionExp(ConditionExp.Op.EQ, i1, i2), fact));
+        fact.update(i2, Value.getUndef());
+        assertEquals(Value.getUndef(), ConstantPropagation.evaluate(
+                new ArithmeticExp(ArithmeticExp.Op.ADD, i1, i2), fact));
+    }
+
+    /**
+     * Operands that cannot hold int values are never in the fact,
+     * and must be evaluated to NAC instead of UNDEF.
+     */
+    @Test
+    public void testNonIntOperands() {
+        CPFact fact = newFact();
+        assertEquals(Value.getNAC(), ConstantPropagation.evaluate(l1, fact));
+        assertEquals(Value.getNAC(), ConstantPropagation.evaluate(
+                new ArithmeticExp(ArithmeticExp.Op.ADD, l1, l2), fact));
+        assertEquals(Value.getNAC(), ConstantPropagation.evaluate(
+                new ComparisonExp(ComparisonExp.Op.CMP, l1, l2), fact));
+        assertEquals(Value.getNAC(), ConstantPropagation.evaluate(
+                new ConditionExp(ConditionExp.Op.EQ, r1, r2), fact));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Test;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.util.AnalysisException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PackedValueTest {
+
+    private static final int[] CONSTANTS = {
+            0, 1, -1, 2, 7, -8, 31, 32, 1000,
+            Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    private static final List<Value> VALUES = buildValues();
+
+    private static List<Value> buildValues() {
+        List<Value> values = new ArrayList<>();
+        values.add(Value.getUndef());
+        values.add(Value.getNAC());
+        for (int i : CONSTANTS) {
+            values.add(Value.makeConstant(i));
+        }
+        return values;
+    }
+
+    @Test
+    public void testEncoding() {
+        assertTrue(PackedValue.isUndef(PackedValue.UNDEF));
+        assertTrue(PackedValue.isNAC(PackedValue.NAC));
+        assertFalse(PackedValue.isConstant(PackedValue.UNDEF));
+        assertFalse(PackedValue.isConstant(PackedValue.NAC));
+        for (int i : CONSTANTS) {
+            long v = PackedValue.makeConstant(i);
+            assertTrue(PackedValue.isConstant(v));
+            assertFalse(PackedValue.isUndef(v));
+            assertFalse(PackedValue.isNAC(v));
+            assertEquals(i, PackedValue.getConstant(v));
+        }
+    }
+
+    @Test
+    public void testValueRoundTrip() {
+        for (Value value : VALUES) {
+            long v = PackedValue.fromValue(value);
+            assertEquals(value, PackedValue.toValue(v));
+            assertEquals(value.toString(), PackedValue.toString(v));
+        }
+    }
+
+    @Test
+    public void testGetConstantOfNonConstant() {
+        for (long v : new long[]{PackedValue.UNDEF, PackedValue.NAC}) {
+            try {
+                PackedValue.getConstant(v);
+                fail("expected AnalysisException");
+            } catch (AnalysisException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testMeet() {
+        for (Value v1 : VALUES) {
+            for (Value v2 : VALUES) {
+                Value expected;
+                if (v1.isUndef() || v1.equals(v2)) {
+                    expected = v2;
+                } else if (v2.isUndef()) {
+                    expected = v1;
+                } else {
+                    expected = Value.getNAC();
+                }
+                long meet = PackedValue.meet(
+                        PackedValue.fromValue(v1), PackedValue.fromValue(v2));
+                assertEquals(v1 + " meet " + v2,
+                        expected, PackedValue.toValue(meet));
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluateConstants() {
+        assertEvaluates(ArithmeticExp.Op.ADD, Integer.MAX_VALUE, 1, Integer.MIN_VALUE);
+        assertEvaluates(ArithmeticExp.Op.SUB, 3, 5, -2);
+        assertEvaluates(ArithmeticExp.Op.MUL, 1 << 16, 1 << 16, 0);
+        assertEvaluates(ArithmeticExp.Op.DIV, -7, 2, -3);
+        assertEvaluates(ArithmeticExp.Op.DIV, Integer.MIN_VALUE, -1, Integer.MIN_VALUE);
+        assertEvaluates(ArithmeticExp.Op.REM, -7, 2, -1);
+        assertEvaluates(ConditionExp.Op.EQ, 4, 4, 1);
+        assertEvaluates(ConditionExp.Op.NE, 4, 4, 0);
+        assertEvaluates(ConditionExp.Op.LT, -1, 0, 1);
+        assertEvaluates(ConditionExp.Op.GT, -1, 0, 0);
+        assertEvaluates(ConditionExp.Op.LE, 2, 2, 1);
+        assertEvaluates(ConditionExp.Op.GE, 1, 2, 0);
+        assertEvaluates(ShiftExp.Op.SHL, 1, 33, 2);
+        assertEvaluates(ShiftExp.Op.SHR, -8, 1, -4);
+        assertEvaluates(ShiftExp.Op.USHR, -8, 28, 15);
+        assertEvaluates(BitwiseExp.Op.OR, 12, 3, 15);
+        assertEvaluates(BitwiseExp.Op.AND, 12, 6, 4);
+        assertEvaluates(BitwiseExp.Op.XOR, -1, 5, -6);
+    }
+
+    private static void assertEvaluates(BinaryExp.Op op, int i1, int i2, int expected) {
+        long result = PackedValue.evaluate(op,
+                PackedValue.makeConstant(i1), PackedValue.makeConstant(i2));
+        assertEquals(i1 + " " + op + " " + i2,
+                expected, PackedValue.getConstant(result));
+    }
+
+    @Test
+    public void testDivisionByZero() {
+        for (long v : new long[]{PackedValue.makeConstant(5),
+                PackedValue.NAC, PackedValue.UNDEF}) {
+            long zero = PackedValue.makeConstant(0);
+            assertEquals(PackedValue.UNDEF,
+                    PackedValue.evaluate(ArithmeticExp.Op.DIV, v, zero));
+            assertEquals(PackedValue.UNDEF,
+                    PackedValue.evaluate(ArithmeticExp.Op.REM, v, zero));
+        }
+    }
+
+    @Test
+    public void testEvaluateNonConstants() {
+        long c = PackedValue.makeConstant(3);
+        BinaryExp.Op add = ArithmeticExp.Op.ADD;
+        assertEquals(PackedValue.NAC, PackedValue.evaluate(add, c, PackedValue.NAC));
+        assertEquals(PackedValue.NAC, PackedValue.evaluate(add, PackedValue.NAC, c));
+        assertEquals(PackedValue.NAC,
+                PackedValue.evaluate(add, PackedValue.NAC, PackedValue.UNDEF));
+        assertEquals(PackedValue.UNDEF, PackedValue.evaluate(add, c, PackedValue.UNDEF));
+        assertEquals(PackedValue.UNDEF, PackedValue.evaluate(add, PackedValue.UNDEF, c));
+    }
+}
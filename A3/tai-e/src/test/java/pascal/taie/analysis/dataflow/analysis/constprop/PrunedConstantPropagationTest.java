@@ -0,0 +1,143 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+
+/**
+ * Compares the results of constant propagation with option
+ * {@code prune-dead} with the ones without it: each pruned OUT fact
+ * must equal the unpruned one restricted to the variables live after
+ * the statement, and each pruned IN fact must agree with the unpruned
+ * one on the variables live before the statement.
+ */
+public class PrunedConstantPropagationTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final String CONSTPROP_CLASS_PATH = "src/test/resources/dataflow/constprop/";
+
+    private static final List<String> SOLVERS = List.of("worklist", "block", "demand");
+
+    private static final List<String> FACTS = List.of("persistent", "array");
+
+    private final LiveVariableAnalysis liveVarAnalysis = new LiveVariableAnalysis(
+            new AnalysisConfig(LiveVariableAnalysis.ID));
+
+    void testPruned(String classPath, String inputClass) {
+        Main.main(new String[]{"-pp", "-cp", classPath, "-m", inputClass,
+                "-a", CFGBuilder.ID});
+        World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .forEach(this::compare);
+    }
+
+    private void compare(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        DataflowResult<Stmt, SetFact<Var>> liveVars = liveVarAnalysis.analyze(ir);
+        for (String solver : SOLVERS) {
+            for (String fact : FACTS) {
+                DataflowResult<Stmt, CPFact> unpruned = new ConstantPropagation(
+                        new AnalysisConfig(ConstantPropagation.ID,
+                                "solver", solver, "fact", fact)).analyze(ir);
+                DataflowResult<Stmt, CPFact> pruned = new ConstantPropagation(
+                        new AnalysisConfig(ConstantPropagation.ID,
+                                "solver", solver, "fact", fact,
+                                "prune-dead", true)).analyze(ir);
+                String message = solver + "/" + fact + " in " + ir.getMethod();
+                for (Stmt node : cfg) {
+                    // the live variables after the exit are absent in the
+                    // result, and are the ones before it, as it does nothing
+                    SetFact<Var> liveOut = cfg.isExit(node)
+                            ? liveVars.getInFact(node) : liveVars.getOutFact(node);
+                    CPFact expected = unpruned.getOutFact(node).copy();
+                    expected.retainAll(liveOut);
+                    Assert.assertEquals(message + " at OUT of " + node,
+                            expected, pruned.getOutFact(node));
+                    if (cfg.isEntry(node)) {
+                        continue;
+                    }
+                    CPFact unprunedIn = unpruned.getInFact(node);
+                    CPFact prunedIn = pruned.getInFact(node);
+                    liveVars.getInFact(node).forEach(var ->
+                            Assert.assertEquals(message + " at IN of " + node +
+                                            " for " + var,
+                                    unprunedIn.get(var), prunedIn.get(var)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testControlFlowUnreachable() {
+        testPruned(CLASS_PATH, "ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testUnreachableIfBranch() {
+        testPruned(CLASS_PATH, "UnreachableIfBranch");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranch() {
+        testPruned(CLASS_PATH, "UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testDeadAssignment() {
+        testPruned(CLASS_PATH, "DeadAssignment");
+    }
+
+    @Test
+    public void testLoops() {
+        testPruned(CLASS_PATH, "Loops");
+    }
+
+    @Test
+    public void testStoreField() {
+        testPruned(CLASS_PATH, "StoreField");
+    }
+
+    @Test
+    public void testSparseConstants() {
+        testPruned(CONSTPROP_CLASS_PATH, "SparseConstants");
+    }
+}
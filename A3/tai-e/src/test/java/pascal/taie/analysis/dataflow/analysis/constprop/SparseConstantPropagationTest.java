@@ -0,0 +1,257 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Compares the results of sparse constant propagation with the ones
+ * of the dense analysis on the test cases of dead code detection.
+ * The sparse results may be more precise, as infeasible branches are
+ * never followed, but never less precise. Besides, they must be the
+ * solution of the dense analysis on the statements and edges reached
+ * along the branches which are feasible according to the sparse results,
+ * and all values must be UNDEF on the statements which are not reached.
+ */
+public class SparseConstantPropagationTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final String CONSTPROP_CLASS_PATH = "src/test/resources/dataflow/constprop/";
+
+    private final ConstantPropagation denseConstProp = new ConstantPropagation(
+            new AnalysisConfig(ConstantPropagation.ID));
+
+    private final ConstantPropagation sparseConstProp = new ConstantPropagation(
+            new AnalysisConfig(ConstantPropagation.ID, "engine", "sparse"));
+
+    void testSparse(String classPath, String inputClass) {
+        Main.main(new String[]{"-pp", "-cp", classPath, "-m", inputClass,
+                "-a", CFGBuilder.ID});
+        World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .forEach(ir -> compare(ir, denseConstProp.analyze(ir),
+                        sparseConstProp.analyze(ir)));
+    }
+
+    private void compare(IR ir, DataflowResult<Stmt, CPFact> dense,
+                         DataflowResult<Stmt, CPFact> sparse) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        // query in reverse order, so that the facts of the dominators
+        // are built by the queries of the nodes they dominate
+        List<Stmt> nodes = new ArrayList<>();
+        cfg.forEach(nodes::add);
+        Collections.reverse(nodes);
+        for (Stmt node : nodes) {
+            // the facts are cached
+            Assert.assertSame(sparse.getInFact(node), sparse.getInFact(node));
+            Assert.assertSame(sparse.getOutFact(node), sparse.getOutFact(node));
+        }
+        Set<Stmt> reached = computeReached(cfg, sparse);
+        for (Stmt node : nodes) {
+            CPFact in = sparse.getInFact(node);
+            CPFact out = sparse.getOutFact(node);
+            if (!reached.contains(node)) {
+                assertSameValues(ir, "unreachable IN of " + node,
+                        sparseConstProp.newInitialFact(), in);
+                assertSameValues(ir, "unreachable OUT of " + node,
+                        sparseConstProp.newInitialFact(), out);
+                continue;
+            }
+            if (cfg.isEntry(node)) {
+                assertSameValues(ir, "OUT of entry",
+                        dense.getOutFact(node), out);
+                continue;
+            }
+            assertNoLessPrecise(ir, node, dense.getInFact(node), in);
+            assertNoLessPrecise(ir, node, dense.getOutFact(node), out);
+            // IN is the meet of OUT of the reached predecessors
+            // along feasible edges, and OUT is the transfer of IN
+            CPFact meet = sparseConstProp.newInitialFact();
+            for (Edge<Stmt> edge : cfg.getInEdgesOf(node)) {
+                Stmt pred = edge.getSource();
+                if (reached.contains(pred) &&
+                        isFeasible(edge, sparse.getInFact(pred))) {
+                    sparseConstProp.meetInto(sparse.getOutFact(pred), meet);
+                }
+            }
+            assertSameValues(ir, "IN of " + node, meet, in);
+            CPFact transferred = sparseConstProp.newInitialFact();
+            sparseConstProp.transferNode(node, in, transferred);
+            assertSameValues(ir, "OUT of " + node, transferred, out);
+        }
+    }
+
+    /**
+     * @return the nodes reachable from the entry along the edges which
+     * may be taken according to the sparse facts. An if or a switch
+     * statement whose condition is UNDEF takes none of its branches.
+     */
+    private static Set<Stmt> computeReached(
+            CFG<Stmt> cfg, DataflowResult<Stmt, CPFact> sparse) {
+        Set<Stmt> reached = new HashSet<>();
+        Queue<Stmt> workList = new ArrayDeque<>();
+        reached.add(cfg.getEntry());
+        workList.add(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                if (isFeasible(edge, sparse.getInFact(node)) &&
+                        reached.add(edge.getTarget())) {
+                    workList.add(edge.getTarget());
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static boolean isFeasible(Edge<Stmt> edge, CPFact in) {
+        Edge.Kind kind = edge.getKind();
+        if (edge.getSource() instanceof If ifStmt &&
+                (kind == Edge.Kind.IF_TRUE || kind == Edge.Kind.IF_FALSE)) {
+            Value cond = ConstantPropagation.evaluate(ifStmt.getCondition(), in);
+            return cond.isNAC() || cond.isConstant() &&
+                    kind == (cond.getConstant() == 1 ?
+                            Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+        } else if (edge.getSource() instanceof SwitchStmt switchStmt &&
+                (edge.isSwitchCase() || kind == Edge.Kind.SWITCH_DEFAULT)) {
+            Value value = in.get(switchStmt.getVar());
+            if (!value.isConstant()) {
+                return value.isNAC();
+            }
+            return edge.isSwitchCase() ?
+                    edge.getCaseValue() == value.getConstant() :
+                    !switchStmt.getCaseValues().contains(value.getConstant());
+        }
+        return true;
+    }
+
+    private void assertNoLessPrecise(IR ir, Stmt node,
+                                     CPFact dense, CPFact sparse) {
+        for (Var var : ir.getVars()) {
+            if (ConstantPropagation.canHoldInt(var)) {
+                Value denseValue = dense.get(var);
+                Value sparseValue = sparse.get(var);
+                // sparseValue is at least as precise as denseValue
+                // if their meet is denseValue
+                Assert.assertEquals("Value of " + var + " at " + node +
+                                " in " + ir.getMethod(), denseValue,
+                        denseConstProp.meetValue(denseValue, sparseValue));
+            }
+        }
+    }
+
+    private static void assertSameValues(IR ir, String what,
+                                         CPFact expected, CPFact actual) {
+        for (Var var : ir.getVars()) {
+            Assert.assertEquals("Value of " + var + " at " + what +
+                            " in " + ir.getMethod(),
+                    expected.get(var), actual.get(var));
+        }
+    }
+
+    /**
+     * Asserts the value returned by given method, which is NAC
+     * in the dense analysis as it follows infeasible branches.
+     */
+    private void assertReturnConstant(String className, String methodName,
+                                      int expected) {
+        IR ir = World.get().getClassHierarchy()
+                .getClass(className)
+                .getDeclaredMethod(methodName)
+                .getIR();
+        Return ret = ir.stmts()
+                .filter(s -> s instanceof Return)
+                .map(s -> (Return) s)
+                .findFirst()
+                .orElseThrow();
+        Assert.assertEquals(Value.makeConstant(expected),
+                sparseConstProp.analyze(ir).getInFact(ret).get(ret.getValue()));
+        Assert.assertEquals(Value.getNAC(),
+                denseConstProp.analyze(ir).getInFact(ret).get(ret.getValue()));
+    }
+
+    @Test
+    public void testControlFlowUnreachable() {
+        testSparse(CLASS_PATH, "ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testUnreachableIfBranch() {
+        testSparse(CLASS_PATH, "UnreachableIfBranch");
+        assertReturnConstant("UnreachableIfBranch", "branch", 100);
+    }
+
+    @Test
+    public void testUnreachableSwitchBranch() {
+        testSparse(CLASS_PATH, "UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testDeadAssignment() {
+        testSparse(CLASS_PATH, "DeadAssignment");
+    }
+
+    @Test
+    public void testLoops() {
+        testSparse(CLASS_PATH, "Loops");
+    }
+
+    @Test
+    public void testStoreField() {
+        testSparse(CLASS_PATH, "StoreField");
+    }
+
+    @Test
+    public void testSparseConstants() {
+        testSparse(CONSTPROP_CLASS_PATH, "SparseConstants");
+        assertReturnConstant("SparseConstants", "infeasibleBranch", 100);
+        assertReturnConstant("SparseConstants", "infeasibleUpdateInLoop", 1);
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.cache;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the result cache with a cache file of 1 MB.
+ */
+public class ResultCacheTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    /**
+     * Codec of byte arrays, whose lengths control the sizes of the entries.
+     */
+    private static final ResultCodec<byte[]> BYTES = new ResultCodec<>() {
+
+        @Override
+        public void encode(byte[] result, IR ir, DataOutput out) throws IOException {
+            out.writeInt(result.length);
+            out.write(result);
+        }
+
+        @Override
+        public byte[] decode(IR ir, DataInput in) throws IOException {
+            byte[] result = new byte[in.readInt()];
+            in.readFully(result);
+            return result;
+        }
+    };
+
+    /**
+     * Analysis which is used only for its ID and options.
+     */
+    public static class TestAnalysis extends MethodAnalysis {
+
+        public static final String ID = "test";
+
+        public TestAnalysis(AnalysisConfig config) {
+            super(config);
+        }
+
+        @Override
+        public Object analyze(IR ir) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Analysis whose results the results of {@link TestAnalysis} depend on.
+     */
+    public static class DependencyAnalysis extends TestAnalysis {
+
+        public static final String ID = "dep";
+
+        public DependencyAnalysis(AnalysisConfig config) {
+            super(config);
+        }
+    }
+
+    private Path file;
+
+    /**
+     * IRs of the methods of the test class, which have different keys.
+     */
+    private List<IR> irs;
+
+    /**
+     * Size of the results of {@link #BYTES}.
+     */
+    private int resultSize = 100;
+
+    @Before
+    public void setUp() throws IOException {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", "Loops",
+                "-a", CFGBuilder.ID});
+        irs = World.get().getClassHierarchy()
+                .getClass("Loops")
+                .getDeclaredMethods()
+                .stream()
+                .sorted(Comparator.comparing(JMethod::getSignature))
+                .map(JMethod::getIR)
+                .toList();
+        file = Files.createTempFile("result-cache", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        ResultCache cache = ResultCache.of(config(TestAnalysis.ID).getOptions());
+        if (cache != null) {
+            cache.close();
+        }
+        Files.delete(file);
+    }
+
+    private AnalysisConfig config(String id, Object... options) {
+        List<Object> args = new ArrayList<>(
+                List.of("cache", file.toString(), "cache-size", 1));
+        Collections.addAll(args, options);
+        return new AnalysisConfig(id, args.toArray());
+    }
+
+    private ResultCache open() {
+        ResultCache cache = ResultCache.of(config(TestAnalysis.ID).getOptions());
+        Assert.assertNotNull(cache);
+        return cache;
+    }
+
+    private byte[] newResult(int seed) {
+        byte[] result = new byte[resultSize];
+        new Random(seed).nextBytes(result);
+        return result;
+    }
+
+    private byte[] lookup(ResultCache cache, MethodAnalysis analysis,
+                          List<String> dependencies, IR ir, int seed) {
+        return cache.computeIfAbsent(analysis, dependencies, ir, BYTES,
+                () -> newResult(seed));
+    }
+
+    /**
+     * Asserts that the result of seed is returned from given cache.
+     */
+    private void assertHit(ResultCache cache, MethodAnalysis analysis,
+                           List<String> dependencies, IR ir, int seed) {
+        int misses = cache.getMisses();
+        Assert.assertArrayEquals(newResult(seed),
+                lookup(cache, analysis, dependencies, ir, seed));
+        Assert.assertEquals("miss of " + ir.getMethod(),
+                misses, cache.getMisses());
+    }
+
+    private void assertHit(ResultCache cache, MethodAnalysis analysis,
+                           IR ir, int seed) {
+        assertHit(cache, analysis, List.of(), ir, seed);
+    }
+
+    /**
+     * Asserts that the result of seed is absent in given cache,
+     * and it is computed and stored in the cache.
+     */
+    private void assertMiss(ResultCache cache, MethodAnalysis analysis,
+                            List<String> dependencies, IR ir, int seed) {
+        int hits = cache.getHits();
+        Assert.assertArrayEquals(newResult(seed),
+                lookup(cache, analysis, dependencies, ir, seed));
+        Assert.assertEquals("hit of " + ir.getMethod(),
+                hits, cache.getHits());
+    }
+
+    private void assertMiss(ResultCache cache, MethodAnalysis analysis,
+                            IR ir, int seed) {
+        assertMiss(cache, analysis, List.of(), ir, seed);
+    }
+
+    @Test
+    public void testEvictionAndCompaction() throws IOException {
+        // the cache holds three results
+        resultSize = 300_000;
+        TestAnalysis analysis = new TestAnalysis(config(TestAnalysis.ID));
+        ResultCache cache = open();
+        for (int i = 0; i < 3; ++i) {
+            assertMiss(cache, analysis, irs.get(i), i);
+        }
+        assertHit(cache, analysis, irs.get(0), 0);
+        // evicts 1, which is the least recently used, and moves 2
+        // to the place of 1, and then appends 3
+        assertMiss(cache, analysis, irs.get(3), 3);
+        assertHit(cache, analysis, irs.get(3), 3);
+        assertHit(cache, analysis, irs.get(0), 0);
+        assertHit(cache, analysis, irs.get(2), 2);
+        // evicts 3
+        assertMiss(cache, analysis, irs.get(1), 1);
+        // the compacted file holds the remaining results
+        cache.close();
+        cache = open();
+        assertHit(cache, analysis, irs.get(0), 0);
+        assertHit(cache, analysis, irs.get(1), 1);
+        assertHit(cache, analysis, irs.get(2), 2);
+        assertMiss(cache, analysis, irs.get(3), 3);
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        TestAnalysis analysis = new TestAnalysis(config(TestAnalysis.ID));
+        ResultCache cache = open();
+        for (int i = 0; i < irs.size(); ++i) {
+            assertMiss(cache, analysis, irs.get(i), i);
+        }
+        cache.close();
+        cache = open();
+        for (int i = 0; i < irs.size(); ++i) {
+            assertHit(cache, analysis, irs.get(i), i);
+        }
+    }
+
+    @Test
+    public void testCorruptedEntry() throws IOException {
+        TestAnalysis analysis = new TestAnalysis(config(TestAnalysis.ID));
+        ResultCache cache = open();
+        assertMiss(cache, analysis, irs.get(0), 0);
+        assertMiss(cache, analysis, irs.get(1), 1);
+        cache.close();
+        // flips a byte of the first result, which follows the header
+        // of the file (12 bytes) and the header of its entry (24 bytes)
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(50);
+            int b = raf.read();
+            raf.seek(50);
+            raf.write(~b);
+        }
+        cache = open();
+        // the corrupted result is discarded and computed again
+        assertMiss(cache, analysis, irs.get(0), 0);
+        assertHit(cache, analysis, irs.get(0), 0);
+        assertHit(cache, analysis, irs.get(1), 1);
+    }
+
+    @Test
+    public void testDependencies() {
+        TestAnalysis analysis = new TestAnalysis(config(TestAnalysis.ID));
+        DependencyAnalysis dependency = new DependencyAnalysis(config(DependencyAnalysis.ID));
+        List<String> dependencies = List.of(DependencyAnalysis.ID);
+        ResultCache cache = open();
+        IR ir = irs.get(0);
+        // the absence of the result of the dependency is a part of the key
+        assertMiss(cache, analysis, dependencies, ir, 0);
+        assertHit(cache, analysis, dependencies, ir, 0);
+        // the result of the dependency is not from the cache,
+        // thus its key is unknown and the result is not cached
+        ir.storeResult(DependencyAnalysis.ID, newResult(1));
+        assertMiss(cache, analysis, dependencies, ir, 2);
+        assertMiss(cache, analysis, dependencies, ir, 2);
+        // the result of the dependency is from the cache
+        ir.storeResult(DependencyAnalysis.ID, lookup(cache, dependency, List.of(), ir, 1));
+        assertMiss(cache, analysis, dependencies, ir, 3);
+        assertHit(cache, analysis, dependencies, ir, 3);
+        // the result of the dependency with other options has another key
+        DependencyAnalysis otherDependency = new DependencyAnalysis(
+                config(DependencyAnalysis.ID, "k", 1));
+        ir.storeResult(DependencyAnalysis.ID, lookup(cache, otherDependency, List.of(), ir, 4));
+        assertMiss(cache, analysis, dependencies, ir, 5);
+        ir.storeResult(DependencyAnalysis.ID, lookup(cache, dependency, List.of(), ir, 1));
+        assertHit(cache, analysis, dependencies, ir, 3);
+    }
+
+    @Test
+    public void testCacheOptionsNotInKey() {
+        TestAnalysis analysis = new TestAnalysis(config(TestAnalysis.ID));
+        ResultCache cache = open();
+        assertMiss(cache, analysis, irs.get(0), 0);
+        // the same file by another path, and another size
+        // which does not affect the opened cache
+        String path = file.getParent().resolve(".")
+                .resolve(file.getFileName()).toString();
+        TestAnalysis other = new TestAnalysis(new AnalysisConfig(TestAnalysis.ID,
+                "cache", path, "cache-size", 2));
+        Assert.assertSame(cache, ResultCache.of(other.getOptions()));
+        assertHit(cache, other, irs.get(0), 0);
+        // the other options are covered by the key
+        TestAnalysis third = new TestAnalysis(config(TestAnalysis.ID, "k", 1));
+        assertMiss(cache, third, irs.get(0), 0);
+    }
+
+    /**
+     * Runs each analysis with the cache twice on every IR, where the
+     * result of the second run is decoded from the cache, and compares
+     * the decoded results with the ones of the analysis without cache.
+     */
+    @Test
+    public void testCodecs() {
+        ResultCache cache = open();
+        for (IR ir : irs) {
+            for (String fact : List.of("persistent", "array")) {
+                testCodec(cache, ir, new ConstantPropagation(
+                                config(ConstantPropagation.ID, "fact", fact)),
+                        new ConstantPropagation(new AnalysisConfig(
+                                ConstantPropagation.ID, "fact", fact)));
+            }
+            testCodec(cache, ir, new LiveVariableAnalysis(
+                            config(LiveVariableAnalysis.ID)),
+                    new LiveVariableAnalysis(
+                            new AnalysisConfig(LiveVariableAnalysis.ID)));
+            testCodec(cache, ir, new DeadCodeDetection(
+                            config(DeadCodeDetection.ID, "fused", true)),
+                    new DeadCodeDetection(new AnalysisConfig(
+                            DeadCodeDetection.ID, "fused", true)));
+            // the results of the dependencies are from the cache
+            ir.storeResult(ConstantPropagation.ID, new ConstantPropagation(
+                    config(ConstantPropagation.ID)).analyze(ir));
+            ir.storeResult(LiveVariableAnalysis.ID, new LiveVariableAnalysis(
+                    config(LiveVariableAnalysis.ID)).analyze(ir));
+            testCodec(cache, ir, new DeadCodeDetection(
+                            config(DeadCodeDetection.ID)),
+                    new DeadCodeDetection(
+                            new AnalysisConfig(DeadCodeDetection.ID)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void testCodec(ResultCache cache, IR ir,
+                                  MethodAnalysis cached, MethodAnalysis uncached) {
+        String message = cached.getId() + " " + cached.getOptions() +
+                " of " + ir.getMethod();
+        cached.analyze(ir);
+        int hits = cache.getHits();
+        Object actual = cached.analyze(ir);
+        Assert.assertEquals(message, hits + 1, cache.getHits());
+        Object expected = uncached.analyze(ir);
+        if (expected instanceof DataflowResult) {
+            DataflowResult<Stmt, ?> expectedResult = (DataflowResult<Stmt, ?>) expected;
+            DataflowResult<Stmt, ?> actualResult = (DataflowResult<Stmt, ?>) actual;
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            for (Stmt node : cfg) {
+                Assert.assertEquals(message + " at " + node,
+                        expectedResult.getInFact(node), actualResult.getInFact(node));
+                Assert.assertEquals(message + " at " + node,
+                        expectedResult.getOutFact(node), actualResult.getOutFact(node));
+            }
+        } else {
+            Assert.assertEquals(message, expected, actual);
+        }
+    }
+}
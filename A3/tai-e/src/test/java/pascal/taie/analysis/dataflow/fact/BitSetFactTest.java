@@ -0,0 +1,154 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+import pascal.taie.util.Indexer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BitSetFactTest {
+
+    private static final List<String> UNIVERSE = List.of(
+            "a", "b", "c", "d", "e", "f", "g", "h");
+
+    private static final Indexer<String> INDEXER = new Indexer<>() {
+        @Override
+        public int getIndex(String s) {
+            return UNIVERSE.indexOf(s);
+        }
+
+        @Override
+        public String getObject(int index) {
+            return UNIVERSE.get(index);
+        }
+    };
+
+    private static BitSetFact<String> bitSetFact(String... elems) {
+        BitSetFact<String> fact = new BitSetFact<>(INDEXER, UNIVERSE.size());
+        for (String e : elems) {
+            fact.add(e);
+        }
+        return fact;
+    }
+
+    private static Set<String> toSet(SetFact<String> fact) {
+        return fact.stream().collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testSetFactUnionBitSetFact() {
+        SetFact<String> fact = new SetFact<>(List.of("a"));
+        assertTrue(fact.union(bitSetFact("b", "c")));
+        assertEquals(Set.of("a", "b", "c"), toSet(fact));
+        assertFalse(fact.union(bitSetFact("c")));
+    }
+
+    @Test
+    public void testSetFactIntersectBitSetFact() {
+        SetFact<String> fact = new SetFact<>(List.of("a", "b", "c"));
+        assertTrue(fact.intersect(bitSetFact("b", "c", "d")));
+        assertEquals(Set.of("b", "c"), toSet(fact));
+    }
+
+    @Test
+    public void testBitSetFactUnionSetFact() {
+        BitSetFact<String> fact = bitSetFact("a");
+        assertTrue(fact.union(new SetFact<>(List.of("h", "b"))));
+        assertEquals(Set.of("a", "b", "h"), toSet(fact));
+        assertFalse(fact.union(new SetFact<>(List.of("h"))));
+    }
+
+    @Test
+    public void testEqualsOfDifferentImplementations() {
+        assertNotEquals(new SetFact<String>(), bitSetFact());
+        assertNotEquals(bitSetFact(), new SetFact<String>());
+        assertNotEquals(new SetFact<>(List.of("a")), bitSetFact("a"));
+        assertNotEquals(bitSetFact("a"), new SetFact<>(List.of("a")));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        BitSetFact<String> f1 = bitSetFact("a", "g");
+        BitSetFact<String> f2 = new BitSetFact<>(INDEXER);
+        f2.add("g");
+        f2.add("a");
+        assertEquals(f1, f2);
+        assertEquals(f1.hashCode(), f2.hashCode());
+        f2.remove("g");
+        assertNotEquals(f1, f2);
+    }
+
+    @Test
+    public void testSetToGenKill() {
+        BitSetFact<String> target = bitSetFact();
+        assertTrue(target.setToGenKill(bitSetFact("a", "b", "c"),
+                new int[]{4}, new int[]{1, 4}));
+        assertEquals(Set.of("a", "c", "e"), toSet(target));
+        assertFalse(target.setToGenKill(bitSetFact("a", "c"),
+                new int[]{4}, new int[]{}));
+    }
+
+    @Test
+    public void testSetToGenKillAcrossWords() {
+        Indexer<Integer> indexer = new Indexer<>() {
+            @Override
+            public int getIndex(Integer i) {
+                return i;
+            }
+
+            @Override
+            public Integer getObject(int index) {
+                return index;
+            }
+        };
+        BitSetFact<Integer> source = new BitSetFact<>(indexer);
+        source.add(3);
+        source.add(64);
+        source.add(130);
+        BitSetFact<Integer> target = new BitSetFact<>(indexer);
+        assertTrue(target.setToGenKill(source,
+                new int[]{0, 70, 300}, new int[]{64, 130, 500}));
+        assertEquals(Set.of(0, 3, 70, 300),
+                target.stream().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testStampAndCopy() {
+        BitSetFact<String> fact = bitSetFact("a");
+        int stamp = fact.getStamp();
+        assertFalse(fact.add("a"));
+        assertEquals(stamp, fact.getStamp());
+        BitSetFact<String> copy = fact.copy();
+        assertTrue(copy.add("b"));
+        assertEquals(Set.of("a"), toSet(fact));
+        assertEquals(Set.of("a", "b"), toSet(copy));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MapFactTest {
+
+    private static MapFact<String, Integer> mapFact(Object... kvs) {
+        MapFact<String, Integer> fact = new MapFact<>(Map.of());
+        for (int i = 0; i < kvs.length; i += 2) {
+            fact.update((String) kvs[i], (Integer) kvs[i + 1]);
+        }
+        return fact;
+    }
+
+    @Test
+    public void testViewsAreUnmodifiable() {
+        MapFact<String, Integer> fact = mapFact("a", 1, "b", 2);
+        assertThrows(UnsupportedOperationException.class,
+                () -> fact.keySet().remove("a"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> fact.keySet().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> fact.entries().findFirst().orElseThrow().setValue(3));
+        assertEquals(mapFact("a", 1, "b", 2), fact);
+    }
+
+    @Test
+    public void testCopyFromEmpty() {
+        MapFact<String, Integer> source = mapFact("a", 1, "b", 2);
+        MapFact<String, Integer> target = mapFact();
+        int stamp = target.getStamp();
+        assertTrue(target.copyFrom(source));
+        assertNotEquals(stamp, target.getStamp());
+        assertEquals(source, target);
+        assertEquals(source.hashCode(), target.hashCode());
+        // the copied mappings are not shared with the source
+        source.update("a", 3);
+        assertEquals(Integer.valueOf(1), target.get("a"));
+        assertFalse(mapFact().copyFrom(mapFact()));
+    }
+
+    @Test
+    public void testCopyFromNonEmpty() {
+        MapFact<String, Integer> target = mapFact("a", 1, "c", 3);
+        assertTrue(target.copyFrom(mapFact("a", 2, "b", 2)));
+        assertEquals(mapFact("a", 2, "b", 2, "c", 3), target);
+        assertEquals(mapFact("a", 2, "b", 2, "c", 3).hashCode(), target.hashCode());
+        assertFalse(target.copyFrom(mapFact("b", 2)));
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.IntCFG;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the results of the solvers with the ones of the default
+ * work-list solver on both forward and backward analyses over
+ * hand-written and random graphs, both from scratch and after
+ * changing the transfer functions of some nodes.
+ */
+public class SolverTest {
+
+    private static final List<IntCFG> CFGS = buildCFGs();
+
+    private static List<IntCFG> buildCFGs() {
+        List<IntCFG> cfgs = new ArrayList<>();
+        // straight line
+        cfgs.add(new IntCFG(4, new int[][]{{0, 1}, {1, 2}, {2, 3}}));
+        // diamond
+        cfgs.add(new IntCFG(4, new int[][]{{0, 1}, {0, 2}, {1, 3}, {2, 3}}));
+        // nested loops
+        cfgs.add(new IntCFG(8, new int[][]{{0, 1}, {1, 2}, {2, 3}, {3, 4},
+                {4, 3}, {4, 5}, {5, 2}, {5, 6}, {6, 7}, {2, 7}}));
+        // loop with two exits, and a cycle unreachable from the entry
+        cfgs.add(new IntCFG(13, new int[][]{{0, 1}, {1, 2}, {2, 3}, {3, 4},
+                {4, 5}, {4, 8}, {5, 6}, {6, 7}, {7, 4}, {8, 9}, {9, 10},
+                {11, 12}, {12, 11}}));
+        // branch into an infinite loop, which cannot reach the exit,
+        // so that backward analyses have nodes unreachable from the root
+        cfgs.add(new IntCFG(5, new int[][]{{0, 1}, {1, 4}, {0, 2},
+                {2, 3}, {3, 2}}));
+        Random random = new Random(0);
+        for (int i = 0; i < 200; ++i) {
+            int n = 2 + random.nextInt(60);
+            List<int[]> edges = new ArrayList<>();
+            for (int node = 0; node < n - 1; ++node) {
+                if (random.nextInt(10) < 8) {
+                    edges.add(new int[]{node, node + 1});
+                }
+                if (random.nextInt(4) == 0) {
+                    edges.add(new int[]{node, random.nextInt(n)});
+                }
+            }
+            cfgs.add(new IntCFG(n, edges.toArray(new int[0][])));
+        }
+        return cfgs;
+    }
+
+    /**
+     * Gen/kill analysis where each node generates itself and kills the
+     * node of half its number, unless another node is given in kills.
+     */
+    private record GenKill(boolean isForward, Map<Integer, Integer> kills)
+            implements DataflowAnalysis<Integer, SetFact<Integer>> {
+
+        private GenKill(boolean isForward) {
+            this(isForward, new HashMap<>());
+        }
+
+        @Override
+        public SetFact<Integer> newBoundaryFact(CFG<Integer> cfg) {
+            return newInitialFact();
+        }
+
+        @Override
+        public SetFact<Integer> newInitialFact() {
+            return new SetFact<>();
+        }
+
+        @Override
+        public void meetInto(SetFact<Integer> fact, SetFact<Integer> target) {
+            target.union(fact);
+        }
+
+        @Override
+        public boolean transferNode(Integer node, SetFact<Integer> in, SetFact<Integer> out) {
+            SetFact<Integer> source = isForward ? in : out;
+            SetFact<Integer> target = isForward ? out : in;
+            SetFact<Integer> result = source.copy();
+            result.remove(kills.getOrDefault(node, node / 2));
+            result.add(node);
+            if (result.equals(target)) {
+                return false;
+            }
+            target.set(result);
+            return true;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Integer> edge) {
+            return false;
+        }
+
+        @Override
+        public SetFact<Integer> transferEdge(Edge<Integer> edge, SetFact<Integer> nodeFact) {
+            return nodeFact;
+        }
+    }
+
+    private static void testSolver(String kind) {
+        Random random = new Random(1);
+        for (IntCFG cfg : CFGS) {
+            for (boolean isForward : new boolean[]{true, false}) {
+                GenKill analysis = new GenKill(isForward);
+                DataflowResult<Integer, SetFact<Integer>> expected =
+                        Solver.makeSolver(analysis, "worklist").solve(cfg);
+                DataflowResult<Integer, SetFact<Integer>> actual =
+                        Solver.makeSolver(analysis, kind).solve(cfg);
+                // query in random order, as some solvers compute
+                // the facts on demand
+                List<Integer> nodes = new ArrayList<>(cfg.getNodes());
+                Collections.shuffle(nodes, random);
+                for (Integer node : nodes) {
+                    String message = kind + (isForward ? " forward" : " backward")
+                            + " at node " + node + " of " + cfg.getNumberOfNodes();
+                    Assert.assertEquals(message, expected.getInFact(node),
+                            actual.getInFact(node));
+                    Assert.assertEquals(message, expected.getOutFact(node),
+                            actual.getOutFact(node));
+                }
+            }
+        }
+    }
+
+    /**
+     * Changes the kills of random nodes and re-solves the result
+     * incrementally for several rounds, and compares the result with
+     * the one solved from scratch by the work-list solver after each round.
+     *
+     * @param checkSharing whether to check that the facts are shared along
+     *                     the same chain edges as in the result from scratch
+     */
+    private static void testSolveIncrementally(String kind, boolean checkSharing) {
+        Random random = new Random(2);
+        for (IntCFG cfg : CFGS) {
+            int n = cfg.getNumberOfNodes();
+            for (boolean isForward : new boolean[]{true, false}) {
+                GenKill analysis = new GenKill(isForward);
+                Solver<Integer, SetFact<Integer>> solver =
+                        Solver.makeSolver(analysis, kind);
+                DataflowResult<Integer, SetFact<Integer>> result = solver.solve(cfg);
+                for (int round = 0; round < 3; ++round) {
+                    List<Integer> changedNodes = new ArrayList<>();
+                    for (int i = random.nextInt(3); i >= 0; --i) {
+                        int node = random.nextInt(n);
+                        analysis.kills().put(node, random.nextInt(n));
+                        changedNodes.add(node);
+                    }
+                    result = solver.solveIncrementally(cfg, result, changedNodes);
+                    DataflowResult<Integer, SetFact<Integer>> expected =
+                            Solver.makeSolver(analysis, "worklist").solve(cfg);
+                    String message = kind + (isForward ? " forward" : " backward")
+                            + " in round " + round + " of " + n + " nodes";
+                    for (Integer node : cfg) {
+                        Assert.assertEquals(message + " at node " + node,
+                                expected.getInFact(node), result.getInFact(node));
+                        Assert.assertEquals(message + " at node " + node,
+                                expected.getOutFact(node), result.getOutFact(node));
+                        if (!checkSharing) {
+                            continue;
+                        }
+                        for (Edge<Integer> edge : cfg.getOutEdgesOf(node)) {
+                            Integer target = edge.getTarget();
+                            Assert.assertEquals(message + " on edge " + edge,
+                                    expected.getOutFact(node) == expected.getInFact(target),
+                                    result.getOutFact(node) == result.getInFact(target));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the instrumented solver counts the transfers of all
+     * nodes but the boundary one, and that the queries after solving
+     * do not change the statistics.
+     */
+    private static void testStats(String kind) {
+        for (IntCFG cfg : CFGS) {
+            for (boolean isForward : new boolean[]{true, false}) {
+                SolverStats<Integer> stats = new SolverStats<>(null);
+                DataflowResult<Integer, SetFact<Integer>> result = Solver
+                        .makeInstrumentedSolver(new GenKill(isForward), kind, stats)
+                        .solve(cfg);
+                Integer boundary = isForward ? cfg.getEntry() : cfg.getExit();
+                String message = kind + (isForward ? " forward" : " backward")
+                        + " of " + cfg.getNumberOfNodes() + " nodes";
+                long count = 0;
+                for (Integer node : cfg) {
+                    if (!node.equals(boundary)) {
+                        Assert.assertTrue(message + " at node " + node,
+                                stats.getIterations(node) > 0);
+                    }
+                    count += stats.getIterations(node);
+                }
+                Assert.assertEquals(message, count, stats.getTransferCount());
+                for (Integer node : cfg) {
+                    result.getInFact(node);
+                    result.getOutFact(node);
+                }
+                Assert.assertEquals(message, count, stats.getTransferCount());
+            }
+        }
+    }
+
+    @Test
+    public void testPriorityWorkListSolver() {
+        testSolver("priority");
+    }
+
+    @Test
+    public void testWTOSolver() {
+        testSolver("wto");
+    }
+
+    @Test
+    public void testBlockSolver() {
+        testSolver("block");
+    }
+
+    @Test
+    public void testDemandSolver() {
+        testSolver("demand");
+    }
+
+    @Test
+    public void testInstrumentedSolvers() {
+        testStats("worklist");
+        testStats("priority");
+        testStats("wto");
+        testStats("block");
+        testStats("demand");
+    }
+
+    @Test
+    public void testSolveIncrementally() {
+        testSolveIncrementally("worklist", true);
+        testSolveIncrementally("priority", true);
+        testSolveIncrementally("wto", true);
+    }
+
+    /**
+     * The results of the block solvers are re-solved from scratch.
+     */
+    @Test
+    public void testSolveBlockResultIncrementally() {
+        testSolveIncrementally("block", false);
+        testSolveIncrementally("demand", false);
+    }
+}
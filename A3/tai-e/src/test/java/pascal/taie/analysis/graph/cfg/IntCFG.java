@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * CFG whose nodes are the integers from 0 to n - 1, where 0 is the entry
+ * and n - 1 is the exit. It is not backed by any IR, so that solvers can
+ * be tested on arbitrary graphs.
+ */
+public class IntCFG implements CFG<Integer> {
+
+    private final int n;
+
+    private final List<Set<Edge<Integer>>> inEdges = new ArrayList<>();
+
+    private final List<Set<Edge<Integer>>> outEdges = new ArrayList<>();
+
+    /**
+     * @param n     number of nodes
+     * @param edges pairs of sources and targets of the edges
+     */
+    public IntCFG(int n, int[][] edges) {
+        this.n = n;
+        for (int i = 0; i < n; ++i) {
+            inEdges.add(new LinkedHashSet<>());
+            outEdges.add(new LinkedHashSet<>());
+        }
+        for (int[] e : edges) {
+            Edge<Integer> edge = new Edge<>(Edge.Kind.FALL_THROUGH, e[0], e[1]);
+            outEdges.get(e[0]).add(edge);
+            inEdges.get(e[1]).add(edge);
+        }
+    }
+
+    @Override
+    public IR getIR() {
+        return null;
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return null;
+    }
+
+    @Override
+    public Integer getEntry() {
+        return 0;
+    }
+
+    @Override
+    public Integer getExit() {
+        return n - 1;
+    }
+
+    @Override
+    public boolean isEntry(Integer node) {
+        return node == 0;
+    }
+
+    @Override
+    public boolean isExit(Integer node) {
+        return node == n - 1;
+    }
+
+    @Override
+    public Set<Edge<Integer>> getInEdgesOf(Integer node) {
+        return Collections.unmodifiableSet(inEdges.get(node));
+    }
+
+    @Override
+    public Set<Edge<Integer>> getOutEdgesOf(Integer node) {
+        return Collections.unmodifiableSet(outEdges.get(node));
+    }
+
+    @Override
+    public boolean hasNode(Integer node) {
+        return 0 <= node && node < n;
+    }
+
+    @Override
+    public boolean hasEdge(Integer source, Integer target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<Integer> getPredsOf(Integer node) {
+        return inEdges.get(node)
+                .stream()
+                .map(Edge::getSource)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public Set<Integer> getSuccsOf(Integer node) {
+        return outEdges.get(node)
+                .stream()
+                .map(Edge::getTarget)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public Set<Integer> getNodes() {
+        return IntStream.range(0, n)
+                .boxed()
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
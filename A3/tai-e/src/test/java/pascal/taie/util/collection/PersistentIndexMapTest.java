@@ -0,0 +1,213 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.Test;
+import pascal.taie.util.Indexable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentIndexMapTest {
+
+    private record Key(int index) implements Indexable {
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    private static Key key(int index) {
+        return new Key(index);
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        PersistentIndexMap<Key, String> map = new PersistentIndexMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(key(3), "a"));
+        assertEquals("a", map.put(key(3), "b"));
+        assertNull(map.put(key(1000), "c")); // grows the trie
+        assertEquals(2, map.size());
+        assertEquals("b", map.get(key(3)));
+        assertEquals("c", map.get(key(1000)));
+        assertNull(map.get(key(4)));
+        assertNull(map.get(key(1 << 20)));
+        assertNull(map.get("not a key"));
+        assertEquals("b", map.remove(key(3)));
+        assertNull(map.remove(key(3)));
+        assertFalse(map.containsKey(key(3)));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(key(1000)));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        PersistentIndexMap<Key, String> map = new PersistentIndexMap<>();
+        for (int i = 0; i < 100; ++i) {
+            map.put(key(i), "v" + i);
+        }
+        PersistentIndexMap<Key, String> copy = map.copy();
+        assertEquals(map, copy);
+        copy.put(key(5), "x");
+        copy.remove(key(50));
+        copy.put(key(5000), "y");
+        map.put(key(7), "z");
+        assertEquals("v5", map.get(key(5)));
+        assertEquals("v50", map.get(key(50)));
+        assertNull(map.get(key(5000)));
+        assertEquals("x", copy.get(key(5)));
+        assertNull(copy.get(key(50)));
+        assertEquals("v7", copy.get(key(7)));
+        assertEquals("z", map.get(key(7)));
+        assertEquals(100, map.size());
+        assertEquals(100, copy.size());
+    }
+
+    @Test
+    public void testSetTo() {
+        PersistentIndexMap<Key, String> source = new PersistentIndexMap<>();
+        source.put(key(1), "a");
+        source.put(key(40), "b");
+        PersistentIndexMap<Key, String> target = new PersistentIndexMap<>();
+        target.put(key(2), "c");
+        target.setTo(source);
+        assertEquals(source, target);
+        target.put(key(1), "d");
+        source.put(key(40), "e");
+        assertEquals("a", source.get(key(1)));
+        assertEquals("b", target.get(key(40)));
+    }
+
+    @Test
+    public void testIterationOrder() {
+        PersistentIndexMap<Key, Integer> map = new PersistentIndexMap<>();
+        int[] indexes = {700, 3, 64, 31, 32, 0, 1025};
+        for (int index : indexes) {
+            map.put(key(index), index);
+        }
+        List<Integer> iterated = new ArrayList<>();
+        map.forEach((k, v) -> {
+            assertEquals(k.getIndex(), v.intValue());
+            iterated.add(v);
+        });
+        assertEquals(List.of(0, 3, 31, 32, 64, 700, 1025), iterated);
+    }
+
+    @Test
+    public void testRemoveViaViews() {
+        PersistentIndexMap<Key, Integer> map = new PersistentIndexMap<>();
+        for (int i = 0; i < 200; i += 3) {
+            map.put(key(i), i);
+        }
+        PersistentIndexMap<Key, Integer> copy = map.copy();
+        Map<Key, Integer> expected = new HashMap<>(map);
+        // removes entries of shared nodes while iterating over them
+        Iterator<Map.Entry<Key, Integer>> iterator = copy.entrySet().iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() % 2 == 0) {
+                iterator.remove();
+                assertThrows(IllegalStateException.class, iterator::remove);
+            }
+        }
+        expected.values().removeIf(v -> v % 2 == 0);
+        assertEquals(expected, copy);
+        assertEquals(expected.size(), copy.size());
+        assertEquals(67, map.size());
+        assertEquals(Integer.valueOf(6), map.get(key(6)));
+        // removes entries of owned nodes via the key and value views
+        assertTrue(copy.keySet().removeIf(k -> k.getIndex() > 100));
+        assertTrue(copy.values().remove(9));
+        expected.keySet().removeIf(k -> k.getIndex() > 100);
+        expected.values().remove(9);
+        assertEquals(expected, copy);
+        assertEquals(expected.size(), copy.size());
+        copy.entrySet().clear();
+        assertTrue(copy.isEmpty());
+        assertEquals(67, map.size());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        PersistentIndexMap<Key, String> map1 = new PersistentIndexMap<>();
+        PersistentIndexMap<Key, String> map2 = new PersistentIndexMap<>();
+        map1.put(key(1), "a");
+        map1.put(key(2000), "b");
+        map1.remove(key(2000)); // map1 keeps the deeper trie
+        map2.put(key(1), "a");
+        assertEquals(map1, map2);
+        assertEquals(map2, map1);
+        assertEquals(map1.hashCode(), map2.hashCode());
+        assertEquals(Map.of(key(1), "a"), map1);
+        assertEquals(map1, Map.of(key(1), "a"));
+        map2.put(key(2), "c");
+        assertFalse(map1.equals(map2));
+    }
+
+    @Test
+    public void testRandomOperationsAgainstHashMap() {
+        Random random = new Random(0);
+        List<PersistentIndexMap<Key, Integer>> maps = new ArrayList<>();
+        List<Map<Key, Integer>> expected = new ArrayList<>();
+        maps.add(new PersistentIndexMap<>());
+        expected.add(new HashMap<>());
+        for (int step = 0; step < 20000; ++step) {
+            int i = random.nextInt(maps.size());
+            PersistentIndexMap<Key, Integer> map = maps.get(i);
+            Map<Key, Integer> exp = expected.get(i);
+            Key k = key(random.nextInt(random.nextBoolean() ? 40 : 3000));
+            switch (random.nextInt(8)) {
+                case 0 -> {
+                    if (maps.size() < 16) {
+                        maps.add(map.copy());
+                        expected.add(new HashMap<>(exp));
+                    }
+                }
+                case 1 -> assertEquals(exp.remove(k), map.remove(k));
+                default -> {
+                    Integer v = random.nextInt();
+                    assertEquals(exp.put(k, v), map.put(k, v));
+                }
+            }
+        }
+        for (int i = 0; i < maps.size(); ++i) {
+            assertEquals(expected.get(i), maps.get(i));
+            assertEquals(expected.get(i).size(), maps.get(i).size());
+            assertEquals(expected.get(i).hashCode(), maps.get(i).hashCode());
+        }
+    }
+}
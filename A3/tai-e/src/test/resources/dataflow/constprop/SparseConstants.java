@@ -0,0 +1,23 @@
+class SparseConstants {
+
+    int infeasibleBranch() {
+        int x = 10;
+        int z;
+        if (x > 5) {
+            z = 100;
+        } else {
+            z = 200; // unreachable branch
+        }
+        return z;
+    }
+
+    int infeasibleUpdateInLoop(int n) {
+        int c = 1;
+        for (int i = 0; i < n; ++i) {
+            if (c != 1) {
+                c = 2; // unreachable branch
+            }
+        }
+        return c;
+    }
+}
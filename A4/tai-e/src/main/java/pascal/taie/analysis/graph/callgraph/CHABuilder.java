@@ -29,47 +29,189 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Implementation of the CHA algorithm.
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    /**
+     * Whether to resolve the call sites of reachable methods in parallel.
+     */
+    private final boolean parallel;
+
+    /**
+     * Whether to build a {@link CompactCallGraph}.
+     */
+    private final boolean compact;
+
     private ClassHierarchy hierarchy;
 
+    CHABuilder(boolean parallel, boolean compact) {
+        this.parallel = parallel;
+        this.compact = compact;
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
-        return buildCallGraph(World.get().getMainMethod());
+        JMethod entry = World.get().getMainMethod();
+        return parallel ? buildCallGraphInParallel(entry) : buildCallGraph(entry);
     }
 
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
-        DefaultCallGraph callGraph = new DefaultCallGraph();
+        MutableCallGraph callGraph = compact
+                ? new CompactCallGraph() : new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                callGraph.callSitesIn(method).forEach(callSite -> {
+                    CallKind kind = CallGraphs.getCallKind(callSite);
+                    for (JMethod callee : resolve(callSite)) {
+                        callGraph.addEdge(new Edge<>(kind, callSite, callee));
+                        workList.add(callee);
+                    }
+                });
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Builds the call graph with a work-stealing pool. The class hierarchy
+     * does not change during call graph construction, so the call sites of
+     * different methods can be resolved independently; each reachable
+     * method is processed by a task, which forks new tasks for the callees
+     * that have not been reached before.
+     * <p>
+     * The tasks do not modify the call graph, instead, each task collects
+     * the call edges of its method, and the edges of all tasks are merged
+     * into the call graph after the pool finishes, so that the tasks do not
+     * contend for the call graph, which is not thread-safe.
+     */
+    private CallGraph<Invoke, JMethod> buildCallGraphInParallel(JMethod entry) {
+        Set<JMethod> reached = Sets.newConcurrentSet();
+        reached.add(entry);
+        Queue<ResolveTask> finished = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invoke(new ResolveTask(null, entry, reached, finished));
+        } finally {
+            pool.shutdown();
+        }
+        MutableCallGraph callGraph = compact
+                ? new CompactCallGraph() : new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
-        // TODO - finish me
+        for (ResolveTask task : finished) {
+            callGraph.addReachableMethod(task.method);
+            task.edges.forEach(callGraph::addEdge);
+        }
         return callGraph;
     }
 
+    /**
+     * Resolves the call sites of a reachable method, and collects the
+     * call edges of the method.
+     * <p>
+     * The task completes when all tasks forked by it have completed,
+     * so that the root task completes when all reachable methods have
+     * been processed, without blocking any worker thread in joining subtasks.
+     */
+    private class ResolveTask extends CountedCompleter<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JMethod method;
+
+        private final Set<JMethod> reached;
+
+        /**
+         * Receives this task after its edges have been collected.
+         */
+        private final Queue<ResolveTask> finished;
+
+        private final List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+
+        private ResolveTask(CountedCompleter<?> parent, JMethod method,
+                            Set<JMethod> reached, Queue<ResolveTask> finished) {
+            super(parent);
+            this.method = method;
+            this.reached = reached;
+            this.finished = finished;
+        }
+
+        @Override
+        public void compute() {
+            if (!method.isAbstract()) {
+                method.getIR().forEach(stmt -> {
+                    if (stmt instanceof Invoke callSite) {
+                        CallKind kind = CallGraphs.getCallKind(callSite);
+                        for (JMethod callee : resolve(callSite)) {
+                            edges.add(new Edge<>(kind, callSite, callee));
+                            if (reached.add(callee)) {
+                                addToPendingCount(1);
+                                new ResolveTask(this, callee, reached, finished).fork();
+                            }
+                        }
+                    }
+                });
+            }
+            finished.add(this);
+            tryComplete();
+        }
+    }
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
     private Set<JMethod> resolve(Invoke callSite) {
-        // TODO - finish me
-        return null;
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass jclass = methodRef.getDeclaringClass();
+        Subsignature subsignature = methodRef.getSubsignature();
+        Set<JMethod> callees = Sets.newHybridSet();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> addCallee(callees,
+                    CallGraphs.resolveCallee(null, callSite));
+            case VIRTUAL, INTERFACE -> {
+                // the receiver objects can only be instances of
+                // the non-abstract subclasses of the declaring class
+                for (JClass subclass : hierarchy.getConcreteSubclassesOf(jclass)) {
+                    addCallee(callees, dispatch(subclass, subsignature));
+                }
+            }
+        }
+        return callees;
+    }
+
+    private static void addCallee(Set<JMethod> callees, JMethod callee) {
+        if (callee != null) {
+            callees.add(callee);
+        }
     }
 
     /**
      * Looks up the target method based on given class and method subsignature.
      *
+     * The lookups are memoized by the class hierarchy, as the same
+     * classes are dispatched on for many call sites.
+     *
      * @return the dispatched target method, or null if no satisfying method
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
-        return null;
+        return hierarchy.dispatch(jclass, subsignature);
     }
 }
@@ -48,16 +48,30 @@ public class CallGraphBuilder extends ProgramAnalysis {
 
     private final String algorithm;
 
+    /**
+     * Whether to build the call graph with multiple threads.
+     */
+    private final boolean parallel;
+
+    /**
+     * Whether to build the call graph as a {@link CompactCallGraph}.
+     */
+    private final boolean compact;
+
     public CallGraphBuilder(AnalysisConfig config) {
         super(config);
         algorithm = config.getOptions().getString("algorithm");
+        parallel = config.getOptions().getBooleanOrDefault("parallel", false);
+        compact = config.getOptions().getBooleanOrDefault("compact", false);
     }
 
     @Override
     public CallGraph<Invoke, JMethod> analyze() {
         CGBuilder<Invoke, JMethod> builder;
         if (algorithm.equals("cha")) {
-            builder = new CHABuilder();
+            builder = new CHABuilder(parallel, compact);
+        } else if (algorithm.equals("rta")) {
+            builder = new RTABuilder(compact);
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
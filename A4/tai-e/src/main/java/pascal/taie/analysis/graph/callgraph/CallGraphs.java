@@ -24,6 +24,7 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.config.Configs;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.exp.InvokeDynamic;
@@ -32,15 +33,23 @@ import pascal.taie.ir.exp.InvokeInterface;
 import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
+import pascal.taie.util.graph.Graph;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -74,7 +83,35 @@ public final class CallGraphs {
     }
 
     /**
-     * Dumps call graph to dot file.
+     * Resolves the callee of a call site on a receiver object of given type,
+     * e.g., for pointer analysis. All calls are dispatched by the class
+     * hierarchy, which memoizes the results: virtual and interface calls
+     * on the receiver type, and static and special calls on the declaring
+     * class of the method reference.
+     *
+     * @param type     type of the receiver object, which is ignored
+     *                 (i.e., can be null) for static and special calls.
+     * @param callSite the call site to be resolved.
+     * @return the resolved callee, or null if it cannot be resolved.
+     */
+    @Nullable
+    public static JMethod resolveCallee(@Nullable Type type, Invoke callSite) {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        MethodRef methodRef = callSite.getMethodRef();
+        if (callSite.isInterface() || callSite.isVirtual()) {
+            return hierarchy.dispatch(type, methodRef);
+        } else if (callSite.isSpecial() || callSite.isStatic()) {
+            return hierarchy.dispatch(methodRef.getDeclaringClass(),
+                    methodRef.getSubsignature());
+        } else {
+            throw new AnalysisException("Cannot resolve Invoke: " + callSite);
+        }
+    }
+
+    /**
+     * Dumps call graph to dot file. The methods and the edges are dumped
+     * in sorted order, so that the output does not depend on the order
+     * in which the call graph was built (e.g., by multiple threads).
      */
     static void dumpCallGraph(CallGraph<Invoke, JMethod> callGraph, String output) {
         if (output == null) {
@@ -93,7 +130,61 @@ public final class CallGraphs {
                         "style", "filled", "color", "\".3 .2 1.0\""))
                 .setEdgeLabeler(e -> IRPrinter.toString(
                         ((MethodEdge<Invoke, JMethod>) e).callSite()))
-                .dump(callGraph, output);
+                .dump(new SortedGraph(callGraph), output);
+    }
+
+    /**
+     * View of a call graph whose nodes are sorted by their string
+     * representations, and whose out edges are sorted by call sites
+     * and then by callees.
+     */
+    private record SortedGraph(CallGraph<Invoke, JMethod> callGraph)
+            implements Graph<JMethod> {
+
+        private static final Comparator<JMethod> METHOD_COMPARATOR =
+                Comparator.comparing(JMethod::toString);
+
+        private static final Comparator<MethodEdge<Invoke, JMethod>> EDGE_COMPARATOR =
+                Comparator.<MethodEdge<Invoke, JMethod>, Invoke>comparing(MethodEdge::callSite)
+                        .thenComparing(MethodEdge::callee, METHOD_COMPARATOR);
+
+        @Override
+        public boolean hasNode(JMethod node) {
+            return callGraph.hasNode(node);
+        }
+
+        @Override
+        public boolean hasEdge(JMethod source, JMethod target) {
+            return callGraph.hasEdge(source, target);
+        }
+
+        @Override
+        public Set<JMethod> getPredsOf(JMethod node) {
+            return callGraph.getPredsOf(node);
+        }
+
+        @Override
+        public Set<JMethod> getSuccsOf(JMethod node) {
+            return callGraph.getSuccsOf(node);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<MethodEdge<Invoke, JMethod>> getOutEdgesOf(JMethod node) {
+            return callGraph.getOutEdgesOf(node)
+                    .stream()
+                    .map(e -> (MethodEdge<Invoke, JMethod>) e)
+                    .sorted(EDGE_COMPARATOR)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        @Override
+        public Set<JMethod> getNodes() {
+            return callGraph.getNodes()
+                    .stream()
+                    .sorted(METHOD_COMPARATOR)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
     }
 
     public static String toString(Invoke invoke) {
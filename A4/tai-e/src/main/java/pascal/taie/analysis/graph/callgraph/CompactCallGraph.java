@@ -0,0 +1,630 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Call graph implementation which stores the methods, call sites and
+ * call edges in arrays indexed by integers.
+ * <p>
+ * The methods and call sites are numbered densely. The call sites of a
+ * method occupy a contiguous range of numbers, in the order of their
+ * indexes in the IR. Each call edge is stored as a few integers in
+ * growable arrays, and the out edges of each call site and the in edges
+ * of each method are linked lists threaded through these arrays, so that
+ * no {@link Edge} object is retained; the edges are materialized lazily
+ * when they are queried. Compared with {@link DefaultCallGraph}, this
+ * call graph takes much less memory for large call graphs.
+ * <p>
+ * The only hash-based structures are the map from methods to their
+ * numbers (methods do not have indexes), and an open-addressing table
+ * of primitive keys which is used to check duplicate edges.
+ * <p>
+ * This call graph is not thread-safe.
+ */
+public class CompactCallGraph implements MutableCallGraph {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Indicates the end of an edge list, or an unreachable method
+     * in {@link #callSiteBegins}.
+     */
+    private static final int NONE = -1;
+
+    private static final CallKind[] KINDS = CallKind.values();
+
+    private static final int KIND_BITS = 4;
+
+    private static final long EMPTY_KEY = -1L;
+
+    private final Set<JMethod> entryMethods = Sets.newSet();
+
+    // -------------------- methods --------------------
+
+    private final Map<JMethod, Integer> methodIds = Maps.newMap();
+
+    private JMethod[] methods = new JMethod[INITIAL_CAPACITY];
+
+    private int numberOfMethodIds;
+
+    private final BitSet reachableMethods = new BitSet();
+
+    private int numberOfReachableMethods;
+
+    /**
+     * First number of the call sites in each method,
+     * or {@link #NONE} if the method is not reachable.
+     */
+    private int[] callSiteBegins = new int[INITIAL_CAPACITY];
+
+    private int[] callSiteCounts = new int[INITIAL_CAPACITY];
+
+    private int[] firstInEdges = new int[INITIAL_CAPACITY];
+
+    private int[] lastInEdges = new int[INITIAL_CAPACITY];
+
+    private int[] inDegrees = new int[INITIAL_CAPACITY];
+
+    // -------------------- call sites --------------------
+
+    private Invoke[] callSites = new Invoke[INITIAL_CAPACITY];
+
+    private int numberOfCallSites;
+
+    private int[] firstOutEdges = new int[INITIAL_CAPACITY];
+
+    private int[] lastOutEdges = new int[INITIAL_CAPACITY];
+
+    private int[] outDegrees = new int[INITIAL_CAPACITY];
+
+    // -------------------- edges --------------------
+
+    private int[] edgeCallSites = new int[INITIAL_CAPACITY];
+
+    private int[] edgeCallees = new int[INITIAL_CAPACITY];
+
+    private byte[] edgeKinds = new byte[INITIAL_CAPACITY];
+
+    private int[] nextOutEdges = new int[INITIAL_CAPACITY];
+
+    private int[] nextInEdges = new int[INITIAL_CAPACITY];
+
+    private int numberOfEdges;
+
+    /**
+     * Open-addressing hash table of the keys of the edges,
+     * see {@link #edgeKey(int, int, int)}.
+     */
+    private long[] edgeKeys = newKeyTable(INITIAL_CAPACITY);
+
+    /**
+     * Creates a compact copy of given call graph.
+     */
+    public static CompactCallGraph copyOf(CallGraph<Invoke, JMethod> callGraph) {
+        CompactCallGraph copy = new CompactCallGraph();
+        callGraph.entryMethods().forEach(copy::addEntryMethod);
+        callGraph.reachableMethods().forEach(copy::addReachableMethod);
+        callGraph.edges().forEach(copy::addEdge);
+        return copy;
+    }
+
+    /**
+     * Adds an entry method to this call graph.
+     */
+    @Override
+    public void addEntryMethod(JMethod entryMethod) {
+        entryMethods.add(entryMethod);
+    }
+
+    /**
+     * Adds a reachable method to this call graph.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    @Override
+    public boolean addReachableMethod(JMethod method) {
+        int id = getOrCreateMethodId(method);
+        if (reachableMethods.get(id)) {
+            return false;
+        }
+        reachableMethods.set(id);
+        ++numberOfReachableMethods;
+        callSiteBegins[id] = numberOfCallSites;
+        if (!method.isAbstract()) {
+            IR ir = method.getIR();
+            for (Stmt stmt : ir) {
+                if (stmt instanceof Invoke invoke) {
+                    addCallSite(invoke);
+                }
+            }
+        }
+        callSiteCounts[id] = numberOfCallSites - callSiteBegins[id];
+        return true;
+    }
+
+    /**
+     * Adds a new call graph edge to this call graph.
+     *
+     * @param edge the call edge to be added
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    @Override
+    public boolean addEdge(Edge<Invoke, JMethod> edge) {
+        int callSite = getCallSiteId(edge.getCallSite());
+        if (callSite == NONE) {
+            throw new AnalysisException("Call site " + edge.getCallSite() +
+                    " is not in any reachable method");
+        }
+        int callee = getOrCreateMethodId(edge.getCallee());
+        int kind = edge.getKind().ordinal();
+        if (!addEdgeKey(edgeKey(callSite, callee, kind))) {
+            return false;
+        }
+        int e = numberOfEdges++;
+        if (e == edgeCallSites.length) {
+            int capacity = newCapacity(e);
+            edgeCallSites = Arrays.copyOf(edgeCallSites, capacity);
+            edgeCallees = Arrays.copyOf(edgeCallees, capacity);
+            edgeKinds = Arrays.copyOf(edgeKinds, capacity);
+            nextOutEdges = Arrays.copyOf(nextOutEdges, capacity);
+            nextInEdges = Arrays.copyOf(nextInEdges, capacity);
+        }
+        edgeCallSites[e] = callSite;
+        edgeCallees[e] = callee;
+        edgeKinds[e] = (byte) kind;
+        // append the edge to the lists to keep the order of insertion
+        nextOutEdges[e] = NONE;
+        if (lastOutEdges[callSite] == NONE) {
+            firstOutEdges[callSite] = e;
+        } else {
+            nextOutEdges[lastOutEdges[callSite]] = e;
+        }
+        lastOutEdges[callSite] = e;
+        ++outDegrees[callSite];
+        nextInEdges[e] = NONE;
+        if (lastInEdges[callee] == NONE) {
+            firstInEdges[callee] = e;
+        } else {
+            nextInEdges[lastInEdges[callee]] = e;
+        }
+        lastInEdges[callee] = e;
+        ++inDegrees[callee];
+        return true;
+    }
+
+    private int getOrCreateMethodId(JMethod method) {
+        Integer id = methodIds.get(method);
+        if (id != null) {
+            return id;
+        }
+        int newId = numberOfMethodIds++;
+        if (newId == methods.length) {
+            int capacity = newCapacity(newId);
+            methods = Arrays.copyOf(methods, capacity);
+            callSiteBegins = Arrays.copyOf(callSiteBegins, capacity);
+            callSiteCounts = Arrays.copyOf(callSiteCounts, capacity);
+            firstInEdges = Arrays.copyOf(firstInEdges, capacity);
+            lastInEdges = Arrays.copyOf(lastInEdges, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+        }
+        methods[newId] = method;
+        callSiteBegins[newId] = NONE;
+        firstInEdges[newId] = NONE;
+        lastInEdges[newId] = NONE;
+        methodIds.put(method, newId);
+        return newId;
+    }
+
+    private void addCallSite(Invoke invoke) {
+        int id = numberOfCallSites++;
+        if (id == callSites.length) {
+            int capacity = newCapacity(id);
+            callSites = Arrays.copyOf(callSites, capacity);
+            firstOutEdges = Arrays.copyOf(firstOutEdges, capacity);
+            lastOutEdges = Arrays.copyOf(lastOutEdges, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+        }
+        callSites[id] = invoke;
+        firstOutEdges[id] = NONE;
+        lastOutEdges[id] = NONE;
+    }
+
+    private static int newCapacity(int oldCapacity) {
+        return oldCapacity + (oldCapacity >> 1);
+    }
+
+    /**
+     * @return the number of given method, or {@link #NONE} if given
+     * object is not a method in this call graph.
+     */
+    private int getMethodId(Object method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * @return the number of given call site, or {@link #NONE} if given
+     * object is not a call site in the reachable methods.
+     */
+    private int getCallSiteId(Object callSite) {
+        if (!(callSite instanceof Invoke invoke)) {
+            return NONE;
+        }
+        int method = getMethodId(invoke.getContainer());
+        if (method == NONE || callSiteBegins[method] == NONE) {
+            return NONE;
+        }
+        // the call sites of a method are sorted by their indexes
+        int low = callSiteBegins[method];
+        int high = low + callSiteCounts[method] - 1;
+        int index = invoke.getIndex();
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = callSites[mid].getIndex();
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return callSites[mid] == invoke ? mid : NONE;
+            }
+        }
+        return NONE;
+    }
+
+    // -------------------- table of edge keys --------------------
+
+    /**
+     * @return the key which identifies a call edge. Call site numbers
+     * take at most 27 bits, and method numbers take at most 32 bits.
+     */
+    private static long edgeKey(int callSite, int callee, int kind) {
+        return ((long) callSite << (32 + KIND_BITS))
+                | ((long) kind << 32)
+                | (callee & 0xFFFFFFFFL);
+    }
+
+    private static long[] newKeyTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY_KEY);
+        return table;
+    }
+
+    private static int slotOf(long key, long[] table) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (table.length - 1);
+    }
+
+    private boolean containsEdgeKey(long key) {
+        for (int i = slotOf(key, edgeKeys); ; i = (i + 1) & (edgeKeys.length - 1)) {
+            if (edgeKeys[i] == key) {
+                return true;
+            } else if (edgeKeys[i] == EMPTY_KEY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true if given key was not in the table.
+     */
+    private boolean addEdgeKey(long key) {
+        if (containsEdgeKey(key)) {
+            return false;
+        }
+        // keeps load factor of the table at most 0.5
+        if (2 * (numberOfEdges + 1) > edgeKeys.length) {
+            long[] table = newKeyTable(edgeKeys.length * 2);
+            for (long k : edgeKeys) {
+                if (k != EMPTY_KEY) {
+                    insertKey(k, table);
+                }
+            }
+            edgeKeys = table;
+        }
+        insertKey(key, edgeKeys);
+        return true;
+    }
+
+    private static void insertKey(long key, long[] table) {
+        int i = slotOf(key, table);
+        while (table[i] != EMPTY_KEY) {
+            i = (i + 1) & (table.length - 1);
+        }
+        table[i] = key;
+    }
+
+    private boolean hasEdge(int callSite, int callee) {
+        for (int kind = 0; kind < KINDS.length; ++kind) {
+            if (containsEdgeKey(edgeKey(callSite, callee, kind))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // -------------------- queries --------------------
+
+    private IntStream outEdgesOf(int callSite) {
+        return IntStream.iterate(firstOutEdges[callSite],
+                e -> e != NONE, e -> nextOutEdges[e]);
+    }
+
+    private IntStream inEdgesOf(int method) {
+        return IntStream.iterate(firstInEdges[method],
+                e -> e != NONE, e -> nextInEdges[e]);
+    }
+
+    private Edge<Invoke, JMethod> getEdge(int e) {
+        return new Edge<>(KINDS[edgeKinds[e]],
+                callSites[edgeCallSites[e]], methods[edgeCallees[e]]);
+    }
+
+    @Override
+    public Set<Invoke> getCallersOf(JMethod callee) {
+        int method = getMethodId(callee);
+        if (method == NONE) {
+            return Set.of();
+        }
+        return new EdgeView<>(() -> inEdgesOf(method), () -> inDegrees[method],
+                e -> callSites[edgeCallSites[e]]) {
+            @Override
+            public boolean contains(Object o) {
+                int callSite = getCallSiteId(o);
+                return callSite != NONE && hasEdge(callSite, method);
+            }
+        };
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        int site = getCallSiteId(callSite);
+        if (site == NONE) {
+            return Set.of();
+        }
+        return new EdgeView<>(() -> outEdgesOf(site), () -> outDegrees[site],
+                e -> methods[edgeCallees[e]]) {
+            @Override
+            public boolean contains(Object o) {
+                int callee = getMethodId(o);
+                return callee != NONE && hasEdge(site, callee);
+            }
+        };
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOfM(JMethod caller) {
+        return callSitesIn(caller)
+                .flatMap(cs -> getCalleesOf(cs).stream())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public JMethod getContainerOf(Invoke invoke) {
+        return invoke.getContainer();
+    }
+
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        int id = getMethodId(method);
+        if (id == NONE || callSiteBegins[id] == NONE) {
+            return Set.of();
+        }
+        int begin = callSiteBegins[id];
+        int end = begin + callSiteCounts[id];
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Invoke> iterator() {
+                return Collections.unmodifiableList(Arrays.asList(callSites)
+                        .subList(begin, end)).iterator();
+            }
+
+            @Override
+            public int size() {
+                return end - begin;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                int callSite = getCallSiteId(o);
+                return begin <= callSite && callSite < end;
+            }
+        };
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        int site = getCallSiteId(callSite);
+        return site == NONE ? Stream.of() : outEdgesOf(site).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        int id = getMethodId(method);
+        return id == NONE ? Stream.of() : inEdgesOf(id).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edges() {
+        return IntStream.range(0, numberOfEdges).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return numberOfEdges;
+    }
+
+    @Override
+    public Stream<JMethod> entryMethods() {
+        return entryMethods.stream();
+    }
+
+    @Override
+    public Stream<JMethod> reachableMethods() {
+        return reachableMethods.stream().mapToObj(id -> methods[id]);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return numberOfReachableMethods;
+    }
+
+    @Override
+    public boolean contains(JMethod method) {
+        int id = getMethodId(method);
+        return id != NONE && reachableMethods.get(id);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(JMethod node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(JMethod source, JMethod target) {
+        int callee = getMethodId(target);
+        return callee != NONE && getCallSitesIn(source)
+                .stream()
+                .anyMatch(cs -> hasEdge(getCallSiteId(cs), callee));
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getInEdgesOf(JMethod method) {
+        return getCallersOf(method)
+                .stream()
+                .map(cs -> new MethodEdge<>(getContainerOf(cs), method, cs))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getOutEdgesOf(JMethod method) {
+        return callSitesIn(method)
+                .flatMap(cs -> getCalleesOf(cs)
+                        .stream()
+                        .map(callee -> new MethodEdge<>(method, callee, cs)))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getPredsOf(JMethod node) {
+        return getCallersOf(node)
+                .stream()
+                .map(this::getContainerOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getSuccsOf(JMethod node) {
+        return callSitesIn(node)
+                .flatMap(cs -> getCalleesOf(cs).stream())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getNodes() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<JMethod> iterator() {
+                return reachableMethods().iterator();
+            }
+
+            @Override
+            public int size() {
+                return numberOfReachableMethods;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                int id = getMethodId(o);
+                return id != NONE && reachableMethods.get(id);
+            }
+        };
+    }
+
+    // Implementation for StmtResult interface.
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<JMethod> getResult(Stmt stmt) {
+        return getCalleesOf((Invoke) stmt);
+    }
+
+    /**
+     * Unmodifiable set view of the ends of the edges in an edge list.
+     */
+    private static class EdgeView<T> extends AbstractSet<T> {
+
+        private final Supplier<IntStream> edges;
+
+        private final IntSupplier size;
+
+        private final IntFunction<T> mapper;
+
+        private EdgeView(Supplier<IntStream> edges,
+                         IntSupplier size, IntFunction<T> mapper) {
+            this.edges = edges;
+            this.size = size;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return edges.get().mapToObj(mapper).iterator();
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
+        }
+    }
+}
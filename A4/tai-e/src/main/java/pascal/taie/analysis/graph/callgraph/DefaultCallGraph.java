@@ -31,11 +31,13 @@ import java.util.Set;
 /**
  * Default implementation of call graph.
  */
-public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
+public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod>
+        implements MutableCallGraph {
 
     /**
      * Adds an entry method to this call graph.
      */
+    @Override
     public void addEntryMethod(JMethod entryMethod) {
         entryMethods.add(entryMethod);
     }
@@ -46,6 +48,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      * @return true if this call graph changed as a result of the call,
      * otherwise false.
      */
+    @Override
     public boolean addReachableMethod(JMethod method) {
         if (reachableMethods.add(method)) {
             if (!method.isAbstract()) {
@@ -68,6 +71,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
      * @return true if the call graph changed as a result of the call,
      * otherwise false.
      */
+    @Override
     public boolean addEdge(Edge<Invoke, JMethod> edge) {
         if (callSiteToEdges.put(edge.getCallSite(), edge)) {
             calleeToEdges.put(edge.getCallee(), edge);
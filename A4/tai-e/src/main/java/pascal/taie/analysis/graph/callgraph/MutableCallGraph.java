@@ -0,0 +1,55 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+/**
+ * Call graph which can be modified by the call graph builders,
+ * so that they can build different kinds of call graphs directly.
+ */
+interface MutableCallGraph extends CallGraph<Invoke, JMethod> {
+
+    /**
+     * Adds an entry method to this call graph.
+     */
+    void addEntryMethod(JMethod entryMethod);
+
+    /**
+     * Adds a reachable method to this call graph.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addReachableMethod(JMethod method);
+
+    /**
+     * Adds a new call graph edge to this call graph.
+     *
+     * @param edge the call edge to be added
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Edge<Invoke, JMethod> edge);
+}
@@ -0,0 +1,208 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassNames;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the Rapid Type Analysis (RTA) algorithm.
+ * <p>
+ * Different from CHA, RTA only dispatches virtual and interface calls
+ * on the classes which are instantiated by {@link New} statements in
+ * the reachable methods. As new methods become reachable, new classes
+ * may be instantiated, and the call sites that have been processed are
+ * then dispatched on these classes to add call edges incrementally.
+ * <p>
+ * Note that the objects created implicitly, e.g., by the JVM or by
+ * native code, are not tracked, thus RTA may miss some call edges.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    /**
+     * Whether to build a {@link CompactCallGraph}.
+     */
+    private final boolean compact;
+
+    private ClassHierarchy hierarchy;
+
+    private MutableCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in the reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Map from a class to the reachable virtual and interface call sites
+     * whose method references are declared in the class.
+     */
+    private MultiMap<JClass, Invoke> virtualCallSites;
+
+    RTABuilder(boolean compact) {
+        this.compact = compact;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        callGraph = compact ? new CompactCallGraph() : new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        virtualCallSites = Maps.newMultiMap();
+        JMethod entry = World.get().getMainMethod();
+        callGraph.addEntryMethod(entry);
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                processNewMethod(method);
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Processes the statements of a new reachable method.
+     * Instantiated classes are processed before call sites, so that
+     * the virtual calls in the method are dispatched on them once.
+     */
+    private void processNewMethod(JMethod method) {
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt) {
+                processNewClass(getInstantiatedClass(newStmt));
+            }
+        }
+        callGraph.callSitesIn(method).forEach(this::processCallSite);
+    }
+
+    /**
+     * @return the class instantiated by given new statement.
+     * Arrays are instances of {@link Object} with respect to dispatch.
+     */
+    private JClass getInstantiatedClass(New newStmt) {
+        Type type = newStmt.getRValue().getType();
+        return type instanceof ClassType classType
+                ? classType.getJClass()
+                : hierarchy.getJREClass(ClassNames.OBJECT);
+    }
+
+    /**
+     * Dispatches the processed call sites on a newly instantiated class.
+     */
+    private void processNewClass(JClass jclass) {
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        // the call sites that may have instances of jclass as receiver
+        // objects are declared in jclass and its super types
+        for (JClass type : getSuperTypesOf(jclass)) {
+            for (Invoke callSite : virtualCallSites.get(type)) {
+                addCallEdge(callSite, dispatch(jclass, callSite.getMethodRef()));
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass jclass = methodRef.getDeclaringClass();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> addCallEdge(callSite,
+                    CallGraphs.resolveCallee(null, callSite));
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(jclass, callSite);
+                // iterates the smaller one of the instantiated classes
+                // and the subclasses of the declaring class
+                Collection<JClass> subclasses = hierarchy.getConcreteSubclassesOf(jclass);
+                if (subclasses.size() < instantiatedClasses.size()) {
+                    for (JClass subclass : subclasses) {
+                        if (instantiatedClasses.contains(subclass)) {
+                            addCallEdge(callSite, dispatch(subclass, methodRef));
+                        }
+                    }
+                } else {
+                    for (JClass instantiated : instantiatedClasses) {
+                        if (hierarchy.isSubclass(jclass, instantiated)) {
+                            addCallEdge(callSite, dispatch(instantiated, methodRef));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addCallEdge(Invoke callSite, JMethod callee) {
+        if (callee != null && callGraph.addEdge(
+                new Edge<>(CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+
+    /**
+     * @return given class and all its super classes and super interfaces.
+     */
+    private static Set<JClass> getSuperTypesOf(JClass jclass) {
+        Set<JClass> superTypes = Sets.newHybridSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass type = queue.poll();
+            if (superTypes.add(type)) {
+                if (type.getSuperClass() != null) {
+                    queue.add(type.getSuperClass());
+                }
+                queue.addAll(type.getInterfaces());
+            }
+        }
+        return superTypes;
+    }
+
+    /**
+     * Looks up the target method based on given class and method reference.
+     *
+     * @return the dispatched target method, or null if no satisfying method
+     * can be found.
+     */
+    private JMethod dispatch(JClass jclass, MethodRef methodRef) {
+        return hierarchy.dispatch(jclass, methodRef.getSubsignature());
+    }
+}
@@ -23,6 +23,7 @@
 package pascal.taie.language.classes;
 
 import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.language.type.Type;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
@@ -75,6 +76,25 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if subclass is a subclass (or subinterface, or
+     * implementor) of superclass, or they are the same class.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @return all subclasses (or subinterfaces and implementors) of given
+     * class, including the class itself.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass);
+
+    /**
+     * @return the classes in {@link #getAllSubclassesOf(JClass)} which are
+     * neither abstract classes nor interfaces, i.e., the possible types
+     * of the objects which are instances of given class.
+     */
+    Collection<JClass> getConcreteSubclassesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -87,6 +107,28 @@ public interface ClassHierarchy {
 
     @Nullable JMethod resolveMethod(MethodRef methodRef);
 
+    /**
+     * Dispatches a method call on an object of given class, i.e., finds
+     * the non-abstract method of given subsignature which is declared in
+     * the class or inherited from its superclasses (or superinterfaces,
+     * for default methods). The results are memoized, thus repeated
+     * dispatches, e.g., on the same receiver class from different call
+     * sites, take constant time.
+     *
+     * @return the dispatched method, or null if no such method exists.
+     */
+    @Nullable
+    JMethod dispatch(JClass receiverClass, Subsignature subsignature);
+
+    /**
+     * Dispatches a call to given method on an object of given type.
+     * Calls on arrays are dispatched to {@code java.lang.Object}.
+     *
+     * @see #dispatch(JClass, Subsignature)
+     */
+    @Nullable
+    JMethod dispatch(Type receiverType, MethodRef methodRef);
+
     /**
      * Obtains a method declared in a JRE class by its signature.
      *
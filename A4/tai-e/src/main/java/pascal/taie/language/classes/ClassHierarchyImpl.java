@@ -25,15 +25,21 @@ package pascal.taie.language.classes;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.language.type.ArrayType;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static pascal.taie.util.collection.Maps.newConcurrentMap;
 import static pascal.taie.util.collection.Maps.newMap;
 import static pascal.taie.util.collection.Maps.newSmallMap;
 import static pascal.taie.util.collection.Sets.newHybridSet;
@@ -65,6 +71,22 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Index of the subtype relation, which is built on the first query
+     * after the classes are loaded, and is discarded when a class is added.
+     */
+    @Nullable
+    private volatile SubtypeIndex subtypeIndex;
+
+    /**
+     * Memoized results of {@link #dispatch(JClass, Subsignature)}, where
+     * empty results mean that the dispatch fails. As the methods inherited
+     * by a class depend only on its supertypes, which are fixed when the
+     * class is loaded, the results are never invalidated.
+     */
+    private final ConcurrentMap<JClass, ConcurrentMap<Subsignature, Optional<JMethod>>>
+            dispatchTable = newConcurrentMap();
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -117,6 +139,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
                         .add(jclass);
             }
         }
+        subtypeIndex = null;
     }
 
     @Override
@@ -160,6 +183,36 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        return getSubtypeIndex().isSubclass(superclass, subclass);
+    }
+
+    @Override
+    public Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        return getSubtypeIndex().getAllSubclassesOf(jclass);
+    }
+
+    @Override
+    public Collection<JClass> getConcreteSubclassesOf(JClass jclass) {
+        return getSubtypeIndex().getConcreteSubclassesOf(jclass);
+    }
+
+    private SubtypeIndex getSubtypeIndex() {
+        SubtypeIndex index = subtypeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = subtypeIndex;
+                if (index == null) {
+                    logger.debug("Building subtype index of class hierarchy");
+                    index = new SubtypeIndex(this);
+                    subtypeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
@@ -193,6 +246,49 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return null;
     }
 
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass receiverClass, Subsignature subsignature) {
+        Map<Subsignature, Optional<JMethod>> table = dispatchTable.get(receiverClass);
+        if (table == null) {
+            table = dispatchTable.computeIfAbsent(receiverClass,
+                    c -> newConcurrentMap());
+        }
+        Optional<JMethod> target = table.get(subsignature);
+        if (target == null) {
+            target = Optional.ofNullable(
+                    lookupMethod(receiverClass, subsignature, false));
+            table.put(subsignature, target);
+        }
+        return target.orElse(null);
+    }
+
+    /**
+     * @return the memoized result of {@link #dispatch(JClass, Subsignature)}
+     * on given class and subsignature, which is empty if the dispatch fails,
+     * or null if the dispatch has not been performed.
+     */
+    @Nullable
+    Optional<JMethod> getMemoizedDispatch(JClass receiverClass, Subsignature subsignature) {
+        Map<Subsignature, Optional<JMethod>> table = dispatchTable.get(receiverClass);
+        return table == null ? null : table.get(subsignature);
+    }
+
+    @Override
+    public @Nullable
+    JMethod dispatch(Type receiverType, MethodRef methodRef) {
+        JClass receiverClass;
+        if (receiverType instanceof ClassType classType) {
+            receiverClass = classType.getJClass();
+        } else if (receiverType instanceof ArrayType) {
+            receiverClass = getJREClass(ClassNames.OBJECT);
+        } else {
+            throw new AnalysisException(receiverType + " cannot be dispatched");
+        }
+        return receiverClass == null ? null
+                : dispatch(receiverClass, methodRef.getSubsignature());
+    }
+
     private JMethod lookupMethod(JClass jclass, Subsignature subsignature,
                                  boolean allowAbstract) {
         for (JClass c = jclass; c != null; c = c.getSuperClass()) {
@@ -0,0 +1,295 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the subtype relation of a frozen class hierarchy.
+ * <p>
+ * The classes (excluding interfaces) are numbered in DFS pre-order of
+ * the tree formed by the superclass relation, so that the subclasses of
+ * each class are numbered by a contiguous interval starting from the class
+ * itself, and subclass checks between classes are interval tests.
+ * The interfaces, which may have multiple supertypes, are numbered after
+ * all classes, and the subtypes of each interface are represented by a
+ * bitset, which is computed on demand and cached.
+ * <p>
+ * The sets of subtypes returned by this index are immutable views
+ * backed by bitsets, which are also cached. This class is thread-safe.
+ */
+final class SubtypeIndex {
+
+    private final Map<JClass, Integer> numbers;
+
+    private final JClass[] classes;
+
+    /**
+     * For each class, the number of the last class in its subtree.
+     */
+    private final int[] subtreeEnds;
+
+    /**
+     * Numbers of the classes which are neither abstract nor interfaces.
+     */
+    private final BitSet concreteClasses = new BitSet();
+
+    /**
+     * Caches the subtypes of interfaces.
+     */
+    private final ConcurrentMap<JClass, BitSet> subtypesOfInterfaces =
+            Maps.newConcurrentMap();
+
+    /**
+     * Caches the subtypes of given types.
+     */
+    private final ConcurrentMap<JClass, Collection<JClass>> subtypes =
+            Maps.newConcurrentMap();
+
+    /**
+     * Caches the non-abstract subtypes of given types.
+     */
+    private final ConcurrentMap<JClass, Collection<JClass>> concreteSubtypes =
+            Maps.newConcurrentMap();
+
+    private final ClassHierarchy hierarchy;
+
+    SubtypeIndex(ClassHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        List<JClass> allClasses = hierarchy.allClasses().toList();
+        Set<JClass> classSet = Sets.newSet(allClasses.size());
+        classSet.addAll(allClasses);
+        numbers = Maps.newMap(allClasses.size());
+        classes = new JClass[allClasses.size()];
+        subtreeEnds = new int[allClasses.size()];
+        // number the classes in DFS pre-order from the roots, i.e.,
+        // the classes whose superclasses are absent in the hierarchy
+        int count = 0;
+        Deque<JClass> stack = new ArrayDeque<>();
+        Deque<Iterator<JClass>> iters = new ArrayDeque<>();
+        for (JClass root : allClasses) {
+            if (root.isInterface() || (root.getSuperClass() != null
+                    && classSet.contains(root.getSuperClass()))) {
+                continue;
+            }
+            count = number(root, count);
+            stack.push(root);
+            iters.push(hierarchy.getDirectSubclassesOf(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<JClass> iter = iters.peek();
+                if (iter.hasNext()) {
+                    JClass subclass = iter.next();
+                    count = number(subclass, count);
+                    stack.push(subclass);
+                    iters.push(hierarchy.getDirectSubclassesOf(subclass).iterator());
+                } else {
+                    subtreeEnds[numbers.get(stack.pop())] = count - 1;
+                    iters.pop();
+                }
+            }
+        }
+        for (JClass iface : allClasses) {
+            if (iface.isInterface()) {
+                subtreeEnds[count] = count;
+                count = number(iface, count);
+            }
+        }
+    }
+
+    /**
+     * Assigns given number to given class.
+     *
+     * @return the next number
+     */
+    private int number(JClass jclass, int number) {
+        numbers.put(jclass, number);
+        classes[number] = jclass;
+        if (!jclass.isInterface() && !jclass.isAbstract()) {
+            concreteClasses.set(number);
+        }
+        return number + 1;
+    }
+
+    /**
+     * @return true if subclass is a subtype of superclass (inclusive).
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass == subclass) {
+            return true;
+        }
+        Integer sup = numbers.get(superclass);
+        Integer sub = numbers.get(subclass);
+        if (sup == null || sub == null) {
+            return false;
+        }
+        if (superclass.isInterface()) {
+            return getSubtypesOfInterface(superclass).get(sub);
+        } else if (subclass.isInterface()) {
+            // interfaces are subtypes of only java.lang.Object among classes
+            return superclass.getName().equals(ClassNames.OBJECT);
+        } else {
+            return sup < sub && sub <= subtreeEnds[sup];
+        }
+    }
+
+    /**
+     * @return all subtypes of given class (inclusive).
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        return subtypes.computeIfAbsent(jclass,
+                c -> new ClassSet(getSubtypes(c)));
+    }
+
+    /**
+     * @return the subtypes of given class (inclusive) which are
+     * neither abstract classes nor interfaces.
+     */
+    Collection<JClass> getConcreteSubclassesOf(JClass jclass) {
+        return concreteSubtypes.computeIfAbsent(jclass, c -> {
+            BitSet bits = getSubtypes(c);
+            bits.and(concreteClasses);
+            return new ClassSet(bits);
+        });
+    }
+
+    /**
+     * @return a new bitset of the subtypes of given class.
+     */
+    private BitSet getSubtypes(JClass jclass) {
+        Integer number = numbers.get(jclass);
+        BitSet bits = new BitSet();
+        if (number == null) {
+            return bits;
+        }
+        if (jclass.isInterface()) {
+            bits.or(getSubtypesOfInterface(jclass));
+        } else if (jclass.getName().equals(ClassNames.OBJECT)) {
+            bits.set(0, classes.length);
+        } else {
+            bits.set(number, subtreeEnds[number] + 1);
+        }
+        return bits;
+    }
+
+    /**
+     * @return the bitset of the subtypes of given interface (inclusive),
+     * which must not be modified.
+     */
+    private BitSet getSubtypesOfInterface(JClass iface) {
+        BitSet bits = subtypesOfInterfaces.get(iface);
+        if (bits == null) {
+            bits = new BitSet();
+            // the subtypes of an interface are its subinterfaces,
+            // the implementors of them, and the subclasses of the implementors
+            Deque<JClass> workList = new ArrayDeque<>();
+            workList.add(iface);
+            bits.set(numbers.get(iface));
+            while (!workList.isEmpty()) {
+                JClass i = workList.poll();
+                for (JClass subinterface : hierarchy.getDirectSubinterfacesOf(i)) {
+                    Integer number = numbers.get(subinterface);
+                    if (number != null && !bits.get(number)) {
+                        bits.set(number);
+                        workList.add(subinterface);
+                    }
+                }
+                for (JClass implementor : hierarchy.getDirectImplementorsOf(i)) {
+                    Integer number = numbers.get(implementor);
+                    if (number != null) {
+                        bits.set(number, subtreeEnds[number] + 1);
+                    }
+                }
+            }
+            BitSet prev = subtypesOfInterfaces.putIfAbsent(iface, bits);
+            if (prev != null) {
+                bits = prev;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Immutable set of classes represented by a bitset of their numbers.
+     */
+    private class ClassSet extends AbstractCollection<JClass> {
+
+        private final BitSet bits;
+
+        private final int size;
+
+        private ClassSet(BitSet bits) {
+            this.bits = bits;
+            this.size = bits.cardinality();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof JClass jclass) {
+                Integer number = numbers.get(jclass);
+                return number != null && bits.get(number);
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private int next = bits.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public JClass next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    JClass jclass = classes[next];
+                    next = bits.nextSetBit(next + 1);
+                    return jclass;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
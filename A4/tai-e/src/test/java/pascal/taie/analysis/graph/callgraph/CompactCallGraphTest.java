@@ -0,0 +1,147 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests that {@link CompactCallGraph} answers all queries of
+ * {@link CallGraph} and {@link pascal.taie.util.graph.Graph}
+ * in the same way as {@link DefaultCallGraph}.
+ */
+public class CompactCallGraphTest {
+
+    private static final String CLASS_PATH = "src/test/resources/cha/";
+
+    private static final List<String> MAIN_CLASSES = List.of(
+            "StaticCall", "VirtualCall", "Interface", "AbstractMethod");
+
+    private static CallGraph<Invoke, JMethod> buildCallGraph(String main, String options) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CallGraphBuilder.ID + "=" + options});
+        return World.get().getResult(CallGraphBuilder.ID);
+    }
+
+    private static <T> Set<T> toSet(Stream<T> stream) {
+        return stream.collect(Collectors.toSet());
+    }
+
+    private static <T> Set<T> toSet(Collection<T> collection) {
+        return new HashSet<>(collection);
+    }
+
+    private static Set<String> toStrings(Stream<?> stream) {
+        return stream.map(Object::toString).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testCopy() {
+        for (String main : MAIN_CLASSES) {
+            CallGraph<Invoke, JMethod> expected = buildCallGraph(main, "algorithm:cha");
+            assertSameGraph(expected, CompactCallGraph.copyOf(expected));
+        }
+    }
+
+    @Test
+    public void testBuildDirectly() {
+        for (String algorithm : List.of("cha", "rta")) {
+            for (String main : MAIN_CLASSES) {
+                CallGraph<Invoke, JMethod> expected = buildCallGraph(
+                        main, "algorithm:" + algorithm);
+                Set<String> methods = toStrings(expected.reachableMethods());
+                Set<String> edges = toStrings(expected.edges());
+                CallGraph<Invoke, JMethod> actual = buildCallGraph(
+                        main, "algorithm:" + algorithm + ";compact:true");
+                Assert.assertTrue(actual instanceof CompactCallGraph);
+                Assert.assertEquals(methods, toStrings(actual.reachableMethods()));
+                Assert.assertEquals(edges, toStrings(actual.edges()));
+            }
+        }
+    }
+
+    @Test
+    public void testDuplicateEdges() {
+        CompactCallGraph callGraph = CompactCallGraph.copyOf(
+                buildCallGraph("VirtualCall", "algorithm:cha"));
+        int numberOfEdges = callGraph.getNumberOfEdges();
+        for (Edge<Invoke, JMethod> edge : callGraph.edges().toList()) {
+            Assert.assertFalse(callGraph.addEdge(edge));
+            Assert.assertFalse(callGraph.addReachableMethod(edge.getCallee()));
+        }
+        Assert.assertEquals(numberOfEdges, callGraph.getNumberOfEdges());
+    }
+
+    private static void assertSameGraph(CallGraph<Invoke, JMethod> expected,
+                                        CallGraph<Invoke, JMethod> actual) {
+        Assert.assertEquals(expected.getNumberOfMethods(), actual.getNumberOfMethods());
+        Assert.assertEquals(expected.getNumberOfEdges(), actual.getNumberOfEdges());
+        Assert.assertEquals(expected.getNumberOfNodes(), actual.getNumberOfNodes());
+        Assert.assertEquals(toSet(expected.entryMethods()), toSet(actual.entryMethods()));
+        Assert.assertEquals(toSet(expected.reachableMethods()), toSet(actual.reachableMethods()));
+        Assert.assertEquals(expected.getNodes(), actual.getNodes());
+        Assert.assertEquals(toSet(expected.edges()), toSet(actual.edges()));
+        Set<JMethod> methods = expected.getNodes();
+        for (JMethod method : methods) {
+            Assert.assertTrue(actual.contains(method));
+            Assert.assertTrue(actual.hasNode(method));
+            Assert.assertEquals(toSet(expected.getCallSitesIn(method)),
+                    toSet(actual.getCallSitesIn(method)));
+            Assert.assertEquals(toSet(expected.getCallersOf(method)),
+                    toSet(actual.getCallersOf(method)));
+            Assert.assertEquals(expected.getCalleesOfM(method), actual.getCalleesOfM(method));
+            Assert.assertEquals(expected.getPredsOf(method), actual.getPredsOf(method));
+            Assert.assertEquals(expected.getSuccsOf(method), actual.getSuccsOf(method));
+            Assert.assertEquals(expected.getInEdgesOf(method), actual.getInEdgesOf(method));
+            Assert.assertEquals(expected.getOutEdgesOf(method), actual.getOutEdgesOf(method));
+            Assert.assertEquals(expected.getInDegreeOf(method), actual.getInDegreeOf(method));
+            Assert.assertEquals(expected.getOutDegreeOf(method), actual.getOutDegreeOf(method));
+            Assert.assertEquals(toSet(expected.edgesInTo(method)),
+                    toSet(actual.edgesInTo(method)));
+            for (JMethod target : methods) {
+                Assert.assertEquals(expected.hasEdge(method, target),
+                        actual.hasEdge(method, target));
+            }
+            for (Invoke callSite : expected.getCallSitesIn(method)) {
+                Assert.assertSame(method, actual.getContainerOf(callSite));
+                Assert.assertTrue(actual.isRelevant(callSite));
+                Assert.assertEquals(toSet(expected.getCalleesOf(callSite)),
+                        toSet(actual.getCalleesOf(callSite)));
+                Assert.assertEquals(expected.getResult(callSite), actual.getResult(callSite));
+                Assert.assertEquals(toSet(expected.edgesOutOf(callSite)),
+                        toSet(actual.edgesOutOf(callSite)));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Tests that CHA builds the same call graphs in parallel mode
+ * as in sequential mode.
+ */
+public class ParallelCHATest {
+
+    private static final String CLASS_PATH = "src/test/resources/cha/";
+
+    private static final List<String> MAIN_CLASSES = List.of(
+            "StaticCall", "VirtualCall", "Interface", "AbstractMethod");
+
+    private static CallGraph<Invoke, JMethod> buildCallGraph(String main, String options) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CallGraphBuilder.ID + "=" + options});
+        return World.get().getResult(CallGraphBuilder.ID);
+    }
+
+    private static Set<String> toStrings(Stream<?> stream) {
+        return stream.map(Object::toString).collect(Collectors.toSet());
+    }
+
+    private static void testParallel(boolean compact) {
+        for (String main : MAIN_CLASSES) {
+            CallGraph<Invoke, JMethod> expected = buildCallGraph(main, "algorithm:cha");
+            Set<String> entries = toStrings(expected.entryMethods());
+            Set<String> methods = toStrings(expected.reachableMethods());
+            Set<String> edges = toStrings(expected.edges());
+            CallGraph<Invoke, JMethod> actual = buildCallGraph(main,
+                    "algorithm:cha;parallel:true;compact:" + compact);
+            Assert.assertEquals(compact, actual instanceof CompactCallGraph);
+            Assert.assertEquals(main, entries, toStrings(actual.entryMethods()));
+            Assert.assertEquals(main, methods, toStrings(actual.reachableMethods()));
+            Assert.assertEquals(main, edges, toStrings(actual.edges()));
+            Assert.assertEquals(main, expected.getNumberOfEdges(),
+                    actual.getNumberOfEdges());
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        testParallel(false);
+    }
+
+    @Test
+    public void testParallelCompact() {
+        testParallel(true);
+    }
+}
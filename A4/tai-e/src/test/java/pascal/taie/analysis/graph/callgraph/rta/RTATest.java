@@ -0,0 +1,67 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph.rta;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class RTATest {
+
+    private static final String CLASS_PATH = "src/test/resources/rta/";
+
+    private static CallGraph<Invoke, JMethod> buildCallGraph(String main) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", CallGraphBuilder.ID + "=algorithm:rta"});
+        return World.get().getResult(CallGraphBuilder.ID);
+    }
+
+    private static Set<String> toStrings(Set<JMethod> methods) {
+        return methods.stream()
+                .map(JMethod::toString)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testLateInstantiation() {
+        CallGraph<Invoke, JMethod> callGraph = buildCallGraph("LateInstantiation");
+        JMethod count = World.get().getClassHierarchy()
+                .getClass("LateInstantiation").getDeclaredMethod("count");
+        Set<Invoke> callSites = callGraph.getCallSitesIn(count);
+        Assert.assertEquals(1, callSites.size());
+        // the call site is dispatched again on Triangle when it is
+        // instantiated, but never on Circle, which is not instantiated
+        Assert.assertEquals(Set.of("<Square: int sides()>", "<Triangle: int sides()>"),
+                toStrings(callGraph.getCalleesOf(callSites.iterator().next())));
+        Assert.assertFalse(callGraph.reachableMethods()
+                .anyMatch(m -> m.getDeclaringClass().getName().equals("Circle")));
+    }
+}
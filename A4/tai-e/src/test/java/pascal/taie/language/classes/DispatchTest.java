@@ -0,0 +1,189 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.type.PrimitiveType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tests the memoized method dispatch of {@link ClassHierarchyImpl},
+ * directly and via {@link CallGraphs#resolveCallee(Type, Invoke)}.
+ */
+public class DispatchTest {
+
+    private static final String CLASS_PATH = "src/test/resources/classes/";
+
+    private static final Subsignature AREA = Subsignature.get("int area()");
+
+    private static final Subsignature DESCRIBE = Subsignature.get("java.lang.String describe()");
+
+    private ClassHierarchyImpl hierarchy;
+
+    @Before
+    public void buildWorld() {
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", "Dispatch");
+        hierarchy = (ClassHierarchyImpl) World.get().getClassHierarchy();
+    }
+
+    private JClass getJClass(String name) {
+        return hierarchy.getClass(name);
+    }
+
+    /**
+     * Dispatches twice, and checks that the second dispatch returns
+     * the memoized result of the first one.
+     *
+     * @return the dispatched method.
+     */
+    private JMethod dispatchTwice(JClass receiverClass, Subsignature subsignature) {
+        Assert.assertNull(hierarchy.getMemoizedDispatch(receiverClass, subsignature));
+        JMethod method = hierarchy.dispatch(receiverClass, subsignature);
+        Assert.assertEquals(Optional.ofNullable(method),
+                hierarchy.getMemoizedDispatch(receiverClass, subsignature));
+        Assert.assertSame(method, hierarchy.dispatch(receiverClass, subsignature));
+        return method;
+    }
+
+    private static void assertDeclaredBy(String className, JMethod method) {
+        Assert.assertNotNull(method);
+        Assert.assertEquals(className, method.getDeclaringClass().getName());
+    }
+
+    @Test
+    public void testRepeatedLookups() {
+        assertDeclaredBy("Square", dispatchTwice(getJClass("Cube"), AREA));
+        assertDeclaredBy("Square", dispatchTwice(getJClass("Square"), AREA));
+        assertDeclaredBy("Cube", dispatchTwice(getJClass("Cube"), DESCRIBE));
+        assertDeclaredBy("AbstractShape", dispatchTwice(getJClass("Square"), DESCRIBE));
+        // the memoized results of different classes are independent
+        Assert.assertNotSame(hierarchy.dispatch(getJClass("Cube"), DESCRIBE),
+                hierarchy.dispatch(getJClass("Square"), DESCRIBE));
+    }
+
+    @Test
+    public void testCachedMiss() {
+        // abstract methods are not dispatch targets
+        Assert.assertNull(dispatchTwice(getJClass("AbstractShape"), AREA));
+        Assert.assertNull(dispatchTwice(getJClass("Shape"), AREA));
+        Assert.assertNull(dispatchTwice(getJClass("Cube"),
+                Subsignature.get("void missing()")));
+        Assert.assertEquals(Optional.empty(),
+                hierarchy.getMemoizedDispatch(getJClass("Cube"),
+                        Subsignature.get("void missing()")));
+    }
+
+    @Test
+    public void testArrayReceiver() {
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        Type arrayType = typeSystem.getArrayType(
+                typeSystem.getClassType(ClassNames.STRING), 1);
+        JClass object = hierarchy.getJREClass(ClassNames.OBJECT);
+        MethodRef hashCode = MethodRef.get(object, "hashCode",
+                List.of(), PrimitiveType.INT, false);
+        Assert.assertNull(hierarchy.getMemoizedDispatch(
+                object, hashCode.getSubsignature()));
+        JMethod method = hierarchy.dispatch(arrayType, hashCode);
+        assertDeclaredBy(ClassNames.OBJECT, method);
+        Assert.assertEquals(Optional.of(method), hierarchy.getMemoizedDispatch(
+                object, hashCode.getSubsignature()));
+        Assert.assertSame(method, hierarchy.dispatch(arrayType, hashCode));
+        Assert.assertSame(method, hierarchy.dispatch(
+                typeSystem.getArrayType(PrimitiveType.INT, 2), hashCode));
+    }
+
+    @Test
+    public void testDefaultMethod() {
+        // ArrayList inherits the default method stream() of Collection
+        // through List, and none of its superclasses declares it
+        JClass arrayList = hierarchy.getJREClass("java.util.ArrayList");
+        Subsignature stream = Subsignature.get("java.util.stream.Stream stream()");
+        JMethod method = dispatchTwice(arrayList, stream);
+        assertDeclaredBy("java.util.Collection", method);
+        Assert.assertFalse(method.isAbstract());
+        assertDeclaredBy("java.util.Collection", dispatchTwice(
+                hierarchy.getJREClass("java.util.LinkedList"), stream));
+    }
+
+    @Test
+    public void testResolveCallee() {
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        Type cube = typeSystem.getClassType("Cube");
+        Type square = typeSystem.getClassType("Square");
+        Type stringArray = typeSystem.getArrayType(
+                typeSystem.getClassType(ClassNames.STRING), 1);
+        List<Invoke> callSites = World.get().getMainMethod().getIR()
+                .stmts()
+                .filter(s -> s instanceof Invoke)
+                .map(s -> (Invoke) s)
+                .toList();
+        // new Cube(), area(), new Square(), describe(), hashCode() and print()
+        Assert.assertEquals(6, callSites.size());
+        for (Invoke callSite : callSites) {
+            MethodRef methodRef = callSite.getMethodRef();
+            Subsignature subsignature = methodRef.getSubsignature();
+            switch (methodRef.getName()) {
+                case "area" -> {
+                    JMethod callee = CallGraphs.resolveCallee(cube, callSite);
+                    assertDeclaredBy("Square", callee);
+                    Assert.assertSame(callee, CallGraphs.resolveCallee(cube, callSite));
+                    Assert.assertEquals(Optional.of(callee),
+                            hierarchy.getMemoizedDispatch(getJClass("Cube"), subsignature));
+                }
+                case "describe" -> {
+                    JMethod callee = CallGraphs.resolveCallee(square, callSite);
+                    assertDeclaredBy("AbstractShape", callee);
+                    Assert.assertEquals(Optional.of(callee),
+                            hierarchy.getMemoizedDispatch(getJClass("Square"), subsignature));
+                }
+                case "hashCode" -> {
+                    JMethod callee = CallGraphs.resolveCallee(stringArray, callSite);
+                    assertDeclaredBy(ClassNames.OBJECT, callee);
+                    Assert.assertEquals(Optional.of(callee), hierarchy.getMemoizedDispatch(
+                            hierarchy.getJREClass(ClassNames.OBJECT), subsignature));
+                }
+                default -> {
+                    // static call to print() and constructor calls,
+                    // which are dispatched on the declaring classes
+                    JMethod callee = CallGraphs.resolveCallee(null, callSite);
+                    Assert.assertNotNull(callee);
+                    Assert.assertSame(methodRef.getDeclaringClass(),
+                            callee.getDeclaringClass());
+                    Assert.assertEquals(Optional.of(callee), hierarchy.getMemoizedDispatch(
+                            methodRef.getDeclaringClass(), subsignature));
+                }
+            }
+        }
+    }
+}
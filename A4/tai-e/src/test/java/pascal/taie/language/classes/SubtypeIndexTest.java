@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the subtype queries of {@link ClassHierarchyImpl}, which are
+ * answered by {@link SubtypeIndex}.
+ */
+public class SubtypeIndexTest {
+
+    private static final String CLASS_PATH = "src/test/resources/classes/";
+
+    private ClassHierarchy hierarchy;
+
+    @Before
+    public void buildWorld() {
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", "Subtypes");
+        hierarchy = World.get().getClassHierarchy();
+    }
+
+    private JClass getClass(String name) {
+        return hierarchy.getClass(name);
+    }
+
+    private static Set<String> names(Collection<JClass> classes) {
+        return classes.stream()
+                .map(JClass::getName)
+                .collect(Collectors.toSet());
+    }
+
+    private void assertSubclass(boolean expected, String superclass, String subclass) {
+        Assert.assertEquals(superclass + " :> " + subclass, expected,
+                hierarchy.isSubclass(getClass(superclass), getClass(subclass)));
+    }
+
+    @Test
+    public void testClassIntervals() {
+        assertSubclass(true, "A", "A");
+        assertSubclass(true, "A", "B");
+        assertSubclass(true, "A", "C");
+        assertSubclass(true, "B", "C");
+        assertSubclass(false, "C", "B");
+        assertSubclass(false, "B", "A");
+        assertSubclass(false, "D", "C");
+        assertSubclass(false, "A", "E");
+        assertSubclass(true, "D", "E");
+        Assert.assertEquals(Set.of("A", "B", "C"),
+                names(hierarchy.getAllSubclassesOf(getClass("A"))));
+        Assert.assertEquals(Set.of("B", "C"),
+                names(hierarchy.getConcreteSubclassesOf(getClass("A"))));
+        Assert.assertEquals(Set.of("C"),
+                names(hierarchy.getAllSubclassesOf(getClass("C"))));
+    }
+
+    @Test
+    public void testInterfaceCones() {
+        // the cone of an interface covers its subinterfaces,
+        // their implementors and the subclasses of the implementors
+        Assert.assertEquals(Set.of("I", "J", "A", "B", "C", "E"),
+                names(hierarchy.getAllSubclassesOf(getClass("I"))));
+        Assert.assertEquals(Set.of("B", "C", "E"),
+                names(hierarchy.getConcreteSubclassesOf(getClass("I"))));
+        Assert.assertEquals(Set.of("J", "A", "B", "C"),
+                names(hierarchy.getAllSubclassesOf(getClass("J"))));
+        Assert.assertEquals(Set.of("K", "C"),
+                names(hierarchy.getAllSubclassesOf(getClass("K"))));
+        assertSubclass(true, "I", "J");
+        assertSubclass(true, "I", "C");
+        assertSubclass(true, "I", "E");
+        assertSubclass(false, "J", "E");
+        assertSubclass(true, "K", "C");
+        assertSubclass(false, "K", "B");
+        assertSubclass(false, "J", "I");
+        assertSubclass(false, "A", "J");
+    }
+
+    @Test
+    public void testObject() {
+        JClass object = hierarchy.getJREClass(ClassNames.OBJECT);
+        for (String name : new String[]{"I", "J", "A", "C", "E"}) {
+            Assert.assertTrue(hierarchy.isSubclass(object, getClass(name)));
+            Assert.assertFalse(hierarchy.isSubclass(getClass(name), object));
+        }
+        Collection<JClass> subclasses = hierarchy.getAllSubclassesOf(object);
+        Assert.assertTrue(names(subclasses).containsAll(
+                Set.of("I", "J", "K", "A", "B", "C", "D", "E", "Subtypes")));
+        Assert.assertEquals(hierarchy.allClasses().count(), subclasses.size());
+    }
+
+    @Test
+    public void testSubclassesAreViews() {
+        Collection<JClass> subclasses = hierarchy.getConcreteSubclassesOf(getClass("I"));
+        Assert.assertTrue(subclasses.contains(getClass("C")));
+        Assert.assertFalse(subclasses.contains(getClass("A")));
+        Assert.assertFalse(subclasses.contains(getClass("D")));
+        Assert.assertEquals(3, subclasses.size());
+        Assert.assertEquals(3, subclasses.stream().count());
+        // the results are cached
+        Assert.assertSame(subclasses, hierarchy.getConcreteSubclassesOf(getClass("I")));
+    }
+}
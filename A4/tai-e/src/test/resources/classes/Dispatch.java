@@ -0,0 +1,36 @@
+interface Shape {
+    int area();
+}
+
+abstract class AbstractShape implements Shape {
+    public String describe() {
+        return "shape";
+    }
+}
+
+class Square extends AbstractShape {
+    public int area() {
+        return 1;
+    }
+}
+
+class Cube extends Square {
+    public String describe() {
+        return "cube";
+    }
+}
+
+public class Dispatch {
+
+    public static void main(String[] args) {
+        Shape shape = new Cube();
+        shape.area();
+        AbstractShape square = new Square();
+        square.describe();
+        args.hashCode();
+        print();
+    }
+
+    static void print() {
+    }
+}
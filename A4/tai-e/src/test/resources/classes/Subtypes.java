@@ -0,0 +1,31 @@
+interface I {
+}
+
+interface J extends I {
+}
+
+interface K {
+}
+
+abstract class A implements J {
+}
+
+class B extends A {
+}
+
+class C extends B implements K {
+}
+
+class D {
+}
+
+class E extends D implements I {
+}
+
+public class Subtypes {
+
+    public static void main(String[] args) {
+        new C();
+        new E();
+    }
+}
@@ -0,0 +1,50 @@
+interface Shape {
+    int sides();
+}
+
+public class LateInstantiation {
+
+    public static void main(String[] args) {
+        Shape s = Factory.square();
+        count(s);
+        // Triangle is instantiated after the call site
+        // in count() has been processed
+        Factory.triangle();
+    }
+
+    static int count(Shape s) {
+        return s.sides();
+    }
+}
+
+class Factory {
+
+    static Shape square() {
+        return new Square();
+    }
+
+    static Shape triangle() {
+        return new Triangle();
+    }
+}
+
+class Square implements Shape {
+
+    public int sides() {
+        return 4;
+    }
+}
+
+class Triangle implements Shape {
+
+    public int sides() {
+        return 3;
+    }
+}
+
+class Circle implements Shape {
+
+    public int sides() {
+        return 0;
+    }
+}